@@ -0,0 +1,143 @@
+package jenkins.plugins.office365connector.benchmark;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import hudson.model.AbstractBuild;
+import hudson.model.AbstractProject;
+import hudson.model.Cause;
+import hudson.model.Result;
+import hudson.model.User;
+import hudson.scm.ChangeLogSet;
+import jenkins.model.Jenkins;
+import jenkins.plugins.office365connector.helpers.ChangeLogSetBuilder;
+import jenkins.plugins.office365connector.helpers.ClassicDisplayURLProviderBuilder;
+import org.jenkinsci.plugins.displayurlapi.DisplayURLProvider;
+import org.jenkinsci.plugins.tokenmacro.TokenMacro;
+import org.mockito.MockedStatic;
+
+/**
+ * Failed build with the change log of given size, used by the benchmarks that need the build.
+ * Jenkins is not started so the build and the extension points are mocked. Static mocks are bound to the thread
+ * that created them, so the fixture must be created by the state with {@link org.openjdk.jmh.annotations.Scope#Thread} scope.
+ */
+final class BuildFixture implements AutoCloseable {
+
+    static final String JOB_NAME = "myJob";
+    static final int BUILD_NUMBER = 12;
+    static final String MACRO_VALUE = "FAILURE";
+
+    private static final int MAX_AUTHORS = 50;
+
+    final AbstractBuild run;
+
+    private final MockedStatic<DisplayURLProvider> displayUrlProviderStatic;
+    private final MockedStatic<TokenMacro> tokenMacroStatic;
+    private final MockedStatic<User> userStatic;
+
+    BuildFixture(int changeLogSize) throws Exception {
+        AbstractProject job = mock(AbstractProject.class);
+        when(job.getFullDisplayName()).thenReturn(JOB_NAME);
+        when(job.getParent()).thenReturn(mock(Jenkins.class));
+
+        run = mock(AbstractBuild.class);
+        when(run.getParent()).thenReturn(job);
+        when(run.getNumber()).thenReturn(BUILD_NUMBER);
+        when(run.getRootDir()).thenReturn(new File("."));
+        when(run.getResult()).thenReturn(Result.FAILURE);
+        mockHistory();
+
+        Cause cause = mock(Cause.class);
+        when(cause.getShortDescription()).thenReturn("Started by an SCM change");
+        when(run.getCauses()).thenReturn(Collections.singletonList(cause));
+
+        List<User> authors = createAuthors(Math.min(changeLogSize, MAX_AUTHORS));
+        ChangeLogSet.Entry[] entries = new ChangeLogSet.Entry[changeLogSize];
+        for (int i = 0; i < changeLogSize; i++) {
+            entries[i] = new Commit(authors.get(i % authors.size()), i);
+        }
+        when(run.getChangeSets()).thenReturn(Collections.singletonList(new ChangeLogSetBuilder(run, entries)));
+        Set<String> culprits = new HashSet<>();
+        userStatic = mockStatic(User.class);
+        for (int i = 0; i < authors.size(); i++) {
+            String id = "developer" + i;
+            culprits.add(id);
+            User author = authors.get(i);
+            userStatic.when(() -> User.getById(id, false)).thenReturn(author);
+        }
+        when(run.getCulpritIds()).thenReturn(culprits);
+
+        displayUrlProviderStatic = mockStatic(DisplayURLProvider.class);
+        displayUrlProviderStatic.when(DisplayURLProvider::get).thenReturn(new ClassicDisplayURLProviderBuilder(JOB_NAME, BUILD_NUMBER));
+        tokenMacroStatic = mockStatic(TokenMacro.class);
+        tokenMacroStatic.when(() -> TokenMacro.expandAll(any(), any(), any(), any())).thenReturn(MACRO_VALUE);
+    }
+
+    private void mockHistory() {
+        AbstractBuild previousBuild = mock(AbstractBuild.class);
+        when(previousBuild.getResult()).thenReturn(Result.FAILURE);
+        when(run.getPreviousBuild()).thenReturn(previousBuild);
+
+        AbstractBuild failingSinceBuild = mock(AbstractBuild.class);
+        when(failingSinceBuild.getNumber()).thenReturn(BUILD_NUMBER - 2);
+        AbstractBuild lastNotFailedBuild = mock(AbstractBuild.class);
+        when(lastNotFailedBuild.getNextBuild()).thenReturn(failingSinceBuild);
+        when(run.getPreviousNotFailedBuild()).thenReturn(lastNotFailedBuild);
+    }
+
+    private static List<User> createAuthors(int count) {
+        List<User> authors = new ArrayList<>(count);
+        for (int i = 0; i < Math.max(count, 1); i++) {
+            User user = mock(User.class);
+            when(user.getFullName()).thenReturn("Developer " + i);
+            authors.add(user);
+        }
+        return authors;
+    }
+
+    @Override
+    public void close() {
+        displayUrlProviderStatic.close();
+        tokenMacroStatic.close();
+        userStatic.close();
+    }
+
+    /**
+     * Single change of the change log.
+     */
+    private static final class Commit extends ChangeLogSet.Entry {
+
+        private final User author;
+        private final int number;
+
+        Commit(User author, int number) {
+            this.author = author;
+            this.number = number;
+        }
+
+        @Override
+        public String getMsg() {
+            return "Change number " + number;
+        }
+
+        @Override
+        public User getAuthor() {
+            return author;
+        }
+
+        @Override
+        public Collection<String> getAffectedPaths() {
+            return Collections.singletonList("src/main/java/File" + number + ".java");
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package jenkins.plugins.office365connector.benchmark;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import hudson.model.TaskListener;
+import jenkins.plugins.office365connector.CardBuilder;
+import jenkins.plugins.office365connector.MacroEvaluator;
+import jenkins.plugins.office365connector.model.Card;
+import jenkins.plugins.office365connector.model.FactDefinition;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures creation of the completion card for the failed build with large change log,
+ * which is what every build does when it finishes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class CardBuilderBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int changeLogSize;
+
+    private final List<FactDefinition> factDefinitions = Arrays.asList(
+            new FactDefinition("Branch", "${GIT_BRANCH}"),
+            new FactDefinition("Environment", "staging"));
+
+    private BuildFixture fixture;
+
+    @Setup
+    public void setUp() throws Exception {
+        fixture = new BuildFixture(changeLogSize);
+    }
+
+    @TearDown
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public Card createCompletedCard() {
+        CardBuilder cardBuilder = new CardBuilder(fixture.run, new MacroEvaluator(fixture.run, TaskListener.NULL));
+        return cardBuilder.createCompletedCard(factDefinitions);
+    }
+}
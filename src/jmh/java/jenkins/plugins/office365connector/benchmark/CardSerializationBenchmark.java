@@ -0,0 +1,68 @@
+package jenkins.plugins.office365connector.benchmark;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.google.gson.FieldNamingPolicy;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import jenkins.plugins.office365connector.CardWriter;
+import jenkins.plugins.office365connector.model.Card;
+import jenkins.plugins.office365connector.model.Fact;
+import jenkins.plugins.office365connector.model.PotentialAction;
+import jenkins.plugins.office365connector.model.Section;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares serialization of the card to the String with Gson against streaming it with {@link CardWriter}.
+ * Run with <code>-prof gc</code> to see the allocation rate.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CardSerializationBenchmark {
+
+    @Param({"5", "50", "500"})
+    private int factsCount;
+
+    private final Gson gson = new GsonBuilder().setFieldNamingPolicy(FieldNamingPolicy.IDENTITY).create();
+    private final CardWriter cardWriter = new CardWriter(false);
+
+    private Card card;
+
+    @Setup
+    public void setUp() {
+        List<Fact> facts = new ArrayList<>(factsCount);
+        for (int i = 0; i < factsCount; i++) {
+            facts.add(new Fact("Fact " + i, "Value of the fact number " + i + " with <html> & \"quotes\""));
+        }
+        card = new Card("myJob: Build Success", new Section("Notification from myJob", "Latest status of build #12", facts));
+        card.setPotentialAction(Collections.singletonList(new PotentialAction("View Build", "http://localhost:8080/job/myJob/12/")));
+    }
+
+    @Benchmark
+    public byte[] gson() {
+        return gson.toJson(card).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] cardWriter() {
+        return cardWriter.write(card);
+    }
+}
@@ -0,0 +1,79 @@
+package jenkins.plugins.office365connector.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import hudson.model.TaskListener;
+import jenkins.plugins.office365connector.DecisionMaker;
+import jenkins.plugins.office365connector.MacroEvaluator;
+import jenkins.plugins.office365connector.Webhook;
+import jenkins.plugins.office365connector.model.Macro;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures matching the macros of the webhooks for single build event. Only the last macro matches,
+ * so all of them are evaluated, and the templates repeat across the webhooks as they usually do.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class DecisionMakerBenchmark {
+
+    private static final int WEBHOOKS_COUNT = 10;
+
+    @Param({"1", "10", "100"})
+    private int macrosCount;
+
+    private final List<Webhook> webhooks = new ArrayList<>();
+
+    private BuildFixture fixture;
+
+    @Setup
+    public void setUp() throws Exception {
+        fixture = new BuildFixture(10);
+        for (int i = 0; i < WEBHOOKS_COUNT; i++) {
+            List<Macro> macros = new ArrayList<>();
+            for (int j = 1; j < macrosCount; j++) {
+                macros.add(new Macro("${ENV, var=\"VARIABLE_" + j + "\"}", "value " + j));
+            }
+            macros.add(new Macro("${BUILD_STATUS}", BuildFixture.MACRO_VALUE));
+
+            Webhook webhook = new Webhook("http://localhost/webhook/" + i);
+            webhook.setMacros(macros);
+            webhooks.add(webhook);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public int isAtLeastOneRuleMatched() {
+        DecisionMaker decisionMaker = new DecisionMaker(fixture.run, TaskListener.NULL,
+                new MacroEvaluator(fixture.run, TaskListener.NULL));
+        int matched = 0;
+        for (Webhook webhook : webhooks) {
+            if (decisionMaker.isAtLeastOneRuleMatched(webhook)) {
+                matched++;
+            }
+        }
+        return matched;
+    }
+}
@@ -0,0 +1,126 @@
+package jenkins.plugins.office365connector.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import jenkins.plugins.office365connector.DeliveryMetrics;
+import jenkins.plugins.office365connector.DeliveryQueue;
+import jenkins.plugins.office365connector.ExponentialBackoffRetryPolicy;
+import jenkins.plugins.office365connector.HttpWorker;
+import jenkins.plugins.office365connector.RetryPolicy;
+import jenkins.plugins.office365connector.SharedHttpClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures how long it takes {@link HttpWorker} to deliver many notifications through the shared client
+ * to the webhook stub that responds after 2 seconds, with the pool of platform threads and with virtual threads.
+ * Both forks allow as many connections as there are notifications, so the benchmark compares the threads
+ * and not the size of the connection pool, and the burst of the rate limiter is raised so no request is postponed.
+ * Virtual threads require Java 21, on older Java both benchmarks use platform threads.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 2)
+@State(Scope.Benchmark)
+public class DeliveryQueueBenchmark {
+
+    private static final int DELIVERIES = 100;
+    private static final long LATENCY = TimeUnit.SECONDS.toMillis(2);
+    private static final int TIMEOUT = 30000;
+
+    private static final String POOL = "-Djenkins.plugins.office365connector.SharedHttpClient.maxConnections=100";
+    private static final String POOL_PER_ROUTE = "-Djenkins.plugins.office365connector.SharedHttpClient.maxConnectionsPerRoute=100";
+    private static final String VIRTUAL_THREADS = "-Djenkins.plugins.office365connector.DeliveryQueue.maxVirtualThreads=100";
+    private static final String BURST = "-Djenkins.plugins.office365connector.RateLimiter.burst=1000";
+
+    private final RetryPolicy retryPolicy = new ExponentialBackoffRetryPolicy(1, 0);
+    private final PrintStream logger = new PrintStream(OutputStream.nullOutputStream());
+    private final byte[] data = "{}".getBytes(StandardCharsets.UTF_8);
+
+    private ExecutorService serverExecutor;
+    private HttpServer server;
+    private String url;
+
+    @Setup
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), DELIVERIES);
+        // every request waits on its own thread so the stub does not limit the concurrency
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.createContext("/webhook", DeliveryQueueBenchmark::handle);
+        server.start();
+        url = "http://localhost:" + server.getAddress().getPort() + "/webhook";
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        DeliveryQueue.shutdown();
+        SharedHttpClient.close();
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {POOL, POOL_PER_ROUTE, BURST,
+            "-Djenkins.plugins.office365connector.DeliveryQueue.virtualThreads=false"})
+    public void platformThreads() throws InterruptedException {
+        deliver();
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {POOL, POOL_PER_ROUTE, BURST, VIRTUAL_THREADS,
+            "-Djenkins.plugins.office365connector.DeliveryQueue.virtualThreads=true"})
+    public void virtualThreads() throws InterruptedException {
+        deliver();
+    }
+
+    private void deliver() throws InterruptedException {
+        long delivered = DeliveryMetrics.get().getCount(DeliveryMetrics.Outcome.SUCCESS) + DELIVERIES;
+        for (int i = 0; i < DELIVERIES; i++) {
+            DeliveryQueue.get().submit(new HttpWorker(url, data, TIMEOUT, retryPolicy, logger));
+        }
+        while (DeliveryMetrics.get().getCount(DeliveryMetrics.Outcome.SUCCESS) < delivered) {
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * Responds the same way as the webhook does when the notification is accepted, but only after a while.
+     */
+    private static void handle(HttpExchange exchange) throws IOException {
+        try (InputStream body = exchange.getRequestBody()) {
+            body.transferTo(OutputStream.nullOutputStream());
+        }
+        try {
+            Thread.sleep(LATENCY);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        byte[] response = "1".getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(200, response.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(response);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package jenkins.plugins.office365connector.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import hudson.model.TaskListener;
+import jenkins.plugins.office365connector.FactsBuilder;
+import jenkins.plugins.office365connector.model.Fact;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures collecting the authors of the changes, which walks the whole change log of the build.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class FactsBuilderBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int changeLogSize;
+
+    private BuildFixture fixture;
+
+    @Setup
+    public void setUp() throws Exception {
+        fixture = new BuildFixture(changeLogSize);
+    }
+
+    @TearDown
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public List<Fact> addDevelopers() {
+        FactsBuilder factsBuilder = new FactsBuilder(fixture.run, TaskListener.NULL);
+        factsBuilder.addDevelopers();
+        return factsBuilder.collect();
+    }
+
+    @Benchmark
+    public List<Fact> addCommitters() {
+        FactsBuilder factsBuilder = new FactsBuilder(fixture.run, TaskListener.NULL);
+        factsBuilder.addCommitters();
+        return factsBuilder.collect();
+    }
+}
@@ -0,0 +1,106 @@
+package jenkins.plugins.office365connector.benchmark;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import jenkins.plugins.office365connector.CardWriter;
+import jenkins.plugins.office365connector.ExponentialBackoffRetryPolicy;
+import jenkins.plugins.office365connector.HttpWorker;
+import jenkins.plugins.office365connector.RateLimiter;
+import jenkins.plugins.office365connector.RetryPolicy;
+import jenkins.plugins.office365connector.SharedHttpClient;
+import jenkins.plugins.office365connector.model.Card;
+import jenkins.plugins.office365connector.model.Fact;
+import jenkins.plugins.office365connector.model.Section;
+import org.mockito.MockedStatic;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures delivery of the notification by {@link HttpWorker} to the webhook stub running in the same process,
+ * which covers the shared client, connection reuse and reading of the response.
+ * Rate limiter is disabled, otherwise the benchmark would measure the configured rate.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class HttpWorkerBenchmark {
+
+    private static final int TIMEOUT = 30000;
+
+    private final RetryPolicy retryPolicy = new ExponentialBackoffRetryPolicy(1, 0);
+    private final PrintStream logger = new PrintStream(OutputStream.nullOutputStream());
+
+    private HttpServer server;
+    private MockedStatic<RateLimiter> rateLimiterStatic;
+    private String url;
+    private byte[] data;
+
+    @Setup
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/webhook", HttpWorkerBenchmark::handle);
+        server.start();
+        url = "http://localhost:" + server.getAddress().getPort() + "/webhook";
+
+        rateLimiterStatic = mockStatic(RateLimiter.class);
+        rateLimiterStatic.when(RateLimiter::get).thenReturn(mock(RateLimiter.class));
+
+        List<Fact> facts = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            facts.add(new Fact("Fact " + i, "Value " + i));
+        }
+        data = new CardWriter(false).write(new Card("myJob: Build #12 Failed", new Section("Notification from myJob", "Latest status of build #12", facts)));
+    }
+
+    @TearDown
+    public void tearDown() {
+        rateLimiterStatic.close();
+        SharedHttpClient.close();
+        server.stop(0);
+    }
+
+    @Benchmark
+    public void deliver() {
+        new HttpWorker(url, data, TIMEOUT, retryPolicy, logger).run();
+    }
+
+    /**
+     * Responds the same way as the webhook does when the notification is accepted.
+     */
+    private static void handle(HttpExchange exchange) throws IOException {
+        try (InputStream body = exchange.getRequestBody()) {
+            body.transferTo(OutputStream.nullOutputStream());
+        }
+        byte[] response = "1".getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(200, response.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(response);
+        }
+    }
+}
@@ -0,0 +1,246 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jenkins.plugins.office365connector;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import hudson.XmlFile;
+import hudson.model.Job;
+import hudson.model.Result;
+import hudson.model.Run;
+import jenkins.util.SystemProperties;
+
+/**
+ * Remembers how the latest builds of every job that sends notifications have finished, so {@link DecisionMaker} and {@link CardBuilder}
+ * do not walk the build history, which loads old builds from the disk, for every notification.
+ * The index is updated when the build completes and stored next to the job configuration,
+ * so it follows the job when it is renamed or moved. When the index does not know the previous build,
+ * for instance because builds finish out of order, the callers fall back to the build history.
+ * Then the index itself looks at limited number of the builds before, so the first build of very long failure
+ * streak is reported as the oldest build that was looked at.
+ * <ul>
+ *     <li><code>jenkins.plugins.office365connector.BuildHistoryIndex.maxDepth</code> (default 50)</li>
+ * </ul>
+ */
+public final class BuildHistoryIndex {
+
+    private static final Logger LOGGER = Logger.getLogger(BuildHistoryIndex.class.getName());
+
+    static final String FILE_NAME = "office365connector-history.xml";
+
+    static final int MAX_DEPTH = SystemProperties.getInteger(BuildHistoryIndex.class.getName() + ".maxDepth", 50);
+
+    private static final BuildHistoryIndex INSTANCE = new BuildHistoryIndex();
+
+    private final int maxDepth;
+    private final Map<String, Streak> streaks = new ConcurrentHashMap<>();
+    // builds of different jobs are recorded independently, only the builds of the same job wait for each other
+    private final Map<String, Object> locks = new ConcurrentHashMap<>();
+
+    BuildHistoryIndex() {
+        this(MAX_DEPTH);
+    }
+
+    BuildHistoryIndex(int maxDepth) {
+        this.maxDepth = maxDepth;
+    }
+
+    public static BuildHistoryIndex get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Updates the index with the completed build. It writes to the disk so it should not be called by the thread
+     * that completes the build.
+     *
+     * @param run completed build
+     */
+    public void record(Run run) {
+        Job job = run.getParent();
+        // jobs that do not send notifications are not indexed, so nothing is written into their directories
+        if (job == null || job.getFullName() == null || run.getResult() == null
+                || job.getProperty(WebhookJobProperty.class) == null) {
+            return;
+        }
+        String name = job.getFullName();
+        synchronized (locks.computeIfAbsent(name, key -> new Object())) {
+            Streak last = streaks.computeIfAbsent(name, key -> load(job));
+            if (last != null && last.number >= run.getNumber()) {
+                // older build that has finished after the newer one
+                return;
+            }
+            Streak streak;
+            if (last != null && last.number == run.getNumber() - 1) {
+                streak = last.next(run.getNumber(), run.getResult()).withPrevious(last.withPrevious(null));
+            } else {
+                streak = Streak.of(run, maxDepth);
+            }
+            streaks.put(name, streak);
+            save(job, streak);
+        }
+    }
+
+    /**
+     * Returns how the build that precedes passed one has finished.
+     *
+     * @param run build for which the notification is sent
+     * @return streak of the previous build or <code>null</code> when it is not known and the build history should be used
+     */
+    public Streak getPrevious(Run run) {
+        Job job = run.getParent();
+        if (job == null || job.getFullName() == null) {
+            return null;
+        }
+        Streak streak = streaks.get(job.getFullName());
+        // the build itself may be already recorded
+        if (streak != null && streak.number == run.getNumber()) {
+            streak = streak.previous;
+        }
+        return streak != null && streak.number == run.getNumber() - 1 ? streak : null;
+    }
+
+    private static Streak load(Job job) {
+        XmlFile file = getFile(job);
+        if (file == null || !file.exists()) {
+            return null;
+        }
+        try {
+            return (Streak) file.read();
+        } catch (IOException | ClassCastException e) {
+            LOGGER.log(Level.WARNING, "Failed to read build history of " + job.getFullName(), e);
+            return null;
+        }
+    }
+
+    private static void save(Job job, Streak streak) {
+        XmlFile file = getFile(job);
+        if (file == null) {
+            return;
+        }
+        try {
+            file.write(streak);
+        } catch (IOException e) {
+            // the index is only rebuilt from the build history after restart
+            LOGGER.log(Level.WARNING, "Failed to write build history of " + job.getFullName(), e);
+        }
+    }
+
+    private static XmlFile getFile(Job job) {
+        File rootDir = job.getRootDir();
+        return rootDir != null ? new XmlFile(new File(rootDir, FILE_NAME)) : null;
+    }
+
+    /**
+     * How the build has finished, together with the results of the builds before it.
+     */
+    public static final class Streak {
+
+        private final int number;
+        private final String result;
+        private final int failingSince;
+        private final String lastNotAbortedResult;
+
+        /**
+         * Streak of the build before, kept only in memory for notifications that are sent after the build
+         * is already recorded.
+         */
+        private final transient Streak previous;
+
+        Streak(int number, Result result, int failingSince, Result lastNotAbortedResult) {
+            this(number, result.toString(), failingSince,
+                    lastNotAbortedResult != null ? lastNotAbortedResult.toString() : null, null);
+        }
+
+        private Streak(int number, String result, int failingSince, String lastNotAbortedResult, Streak previous) {
+            this.number = number;
+            this.result = result;
+            this.failingSince = failingSince;
+            this.lastNotAbortedResult = lastNotAbortedResult;
+            this.previous = previous;
+        }
+
+        /**
+         * Computes the streak of the build from the build history, used when the index does not know the previous build.
+         * At most <code>maxDepth</code> builds before are looked at.
+         */
+        static Streak of(Run run, int maxDepth) {
+            Result result = run.getResult();
+
+            int failingSince = 0;
+            if (result == Result.FAILURE) {
+                Run firstFailedBuild = run;
+                Run previousBuild = run.getPreviousBuild();
+                for (int depth = 0; depth < maxDepth && previousBuild != null
+                        && previousBuild.getResult() == Result.FAILURE; depth++) {
+                    firstFailedBuild = previousBuild;
+                    previousBuild = previousBuild.getPreviousBuild();
+                }
+                failingSince = firstFailedBuild.getNumber();
+            }
+
+            Run notAbortedBuild = run;
+            for (int depth = 0; notAbortedBuild != null && notAbortedBuild.getResult() == Result.ABORTED; depth++) {
+                notAbortedBuild = depth < maxDepth ? notAbortedBuild.getPreviousCompletedBuild() : null;
+            }
+            Result lastNotAbortedResult = notAbortedBuild != null ? notAbortedBuild.getResult() : null;
+
+            return new Streak(run.getNumber(), result, failingSince, lastNotAbortedResult);
+        }
+
+        /**
+         * Computes the streak of the build that directly follows this one.
+         */
+        Streak next(int nextNumber, Result nextResult) {
+            Result current = getResult();
+            int nextFailingSince = 0;
+            if (nextResult == Result.FAILURE) {
+                nextFailingSince = current == Result.FAILURE ? failingSince : nextNumber;
+            }
+            Result nextLastNotAbortedResult = nextResult != Result.ABORTED ? nextResult : getLastNotAbortedResult();
+            return new Streak(nextNumber, nextResult, nextFailingSince, nextLastNotAbortedResult);
+        }
+
+        Streak withPrevious(Streak previousStreak) {
+            return new Streak(number, result, failingSince, lastNotAbortedResult, previousStreak);
+        }
+
+        public int getNumber() {
+            return number;
+        }
+
+        public Result getResult() {
+            return Result.fromString(result);
+        }
+
+        /**
+         * Returns number of the first build of the failure streak, <code>0</code> when the build has not failed.
+         */
+        public int getFailingSince() {
+            return failingSince;
+        }
+
+        /**
+         * Returns result of this build or the latest build before it that was not aborted,
+         * <code>null</code> when there is no such build.
+         */
+        public Result getLastNotAbortedResult() {
+            return lastNotAbortedResult != null ? Result.fromString(lastNotAbortedResult) : null;
+        }
+    }
+}
@@ -0,0 +1,360 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jenkins.plugins.office365connector;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+
+import jenkins.plugins.office365connector.model.Card;
+import jenkins.plugins.office365connector.model.Fact;
+import jenkins.plugins.office365connector.model.PotentialAction;
+import jenkins.plugins.office365connector.model.Section;
+import jenkins.util.SystemProperties;
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * Keeps the requests within the size accepted by the webhook, Teams rejects cards above roughly 28 KB.
+ * Card that is too big is assembled again while its encoded size is measured: long fact values are truncated first
+ * and when it is still not enough, the facts are split into continuation cards. Actions are kept only
+ * on the first card and the summary of every card is suffixed with its number, e.g. <code>(2/3)</code>.
+ * Value that does not fit even into the card of its own is shortened to the size that fits, the fact is left out
+ * when even its name does not fit. Size of the card is tracked while the facts are added, so the card is not
+ * serialized again for every fact.
+ * <ul>
+ *     <li><code>jenkins.plugins.office365connector.CardAssembler.maxSize</code> (default 27 KB)</li>
+ *     <li><code>jenkins.plugins.office365connector.CardAssembler.maxValueLength</code> (default 2000)</li>
+ * </ul>
+ */
+public final class CardAssembler {
+
+    static final int MAX_SIZE = SystemProperties.getInteger(CardAssembler.class.getName() + ".maxSize", 27 * 1024);
+    static final int MAX_VALUE_LENGTH = SystemProperties.getInteger(CardAssembler.class.getName() + ".maxValueLength", 2000);
+
+    static final String TRUNCATION_MARKER = "... (truncated)";
+
+    /**
+     * Space for the number of the card is reserved while the cards are measured, so numbering does not make them too big.
+     */
+    private static final String RESERVED_NUMBER = " (999/999)";
+
+    /**
+     * Elements that precede the measured one, so it is measured as the next element of JSON array.
+     */
+    private static final Section PROBE_SECTION = new Section(null, null, null);
+    private static final Fact PROBE_FACT = new Fact(null, null);
+
+    private final CardWriter cardWriter;
+    private final int maxSize;
+    private final int maxValueLength;
+
+    public CardAssembler(CardWriter cardWriter) {
+        this(cardWriter, MAX_SIZE, MAX_VALUE_LENGTH);
+    }
+
+    CardAssembler(CardWriter cardWriter, int maxSize, int maxValueLength) {
+        this.cardWriter = cardWriter;
+        this.maxSize = maxSize;
+        this.maxValueLength = maxValueLength;
+    }
+
+    /**
+     * Serializes passed card into as many requests as needed to not exceed the size limit.
+     *
+     * @param card card to serialize
+     * @return JSON encoded with UTF-8, single one when the card is small enough
+     */
+    public List<byte[]> write(Card card) {
+        byte[] data = cardWriter.write(card);
+        if (maxSize <= 0 || data.length <= maxSize || card == null) {
+            return Collections.singletonList(data);
+        }
+        Counter.OVERSIZED_CARDS.increment();
+        List<byte[]> payloads = new ArrayList<>();
+        for (Card part : assemble(card)) {
+            payloads.add(cardWriter.write(part));
+        }
+        return payloads;
+    }
+
+    /**
+     * Returns cards that carry the content of passed card and do not exceed the size limit.
+     */
+    List<Card> assemble(Card card) {
+        List<Section> sections = new ArrayList<>();
+        // card without sections can still be shortened by its summary
+        if (card.getSections() != null) {
+            for (Section section : card.getSections()) {
+                sections.add(truncateValues(section));
+            }
+        }
+        Card truncated = createPart(card, card.getSummary(), sections, card.getPotentialAction());
+        if (fits(truncated)) {
+            return Collections.singletonList(truncated);
+        }
+        return split(card, sections);
+    }
+
+    private Section truncateValues(Section section) {
+        if (maxValueLength <= 0 || section == null || section.getFacts() == null
+                || section.getFacts().stream().noneMatch(fact -> isTooLong(fact.getValue()))) {
+            return section;
+        }
+        List<Fact> facts = new ArrayList<>();
+        for (Fact fact : section.getFacts()) {
+            facts.add(isTooLong(fact.getValue()) ? new Fact(fact.getName(), truncate(fact.getValue(), maxValueLength)) : fact);
+        }
+        return new Section(section.getActivityTitle(), section.getActivitySubtitle(), facts);
+    }
+
+    private boolean isTooLong(String value) {
+        return value != null && value.length() > maxValueLength;
+    }
+
+    private List<Card> split(Card card, List<Section> sections) {
+        String summary = StringUtils.defaultString(card.getSummary());
+        String singleSummary = card.getSummary();
+        Part part = new Part(createPart(card, summary + RESERVED_NUMBER, new ArrayList<>(), card.getPotentialAction()));
+        if (!part.fits(maxSize)) {
+            // summary takes at most half of the card so there is still space for the facts
+            summary = StringUtils.defaultString(shorten(summary, value -> measure(
+                    createPart(card, value + RESERVED_NUMBER, new ArrayList<>(), card.getPotentialAction())) <= maxSize / 2));
+            singleSummary = summary;
+            part = new Part(createPart(card, summary + RESERVED_NUMBER, new ArrayList<>(), card.getPotentialAction()));
+        }
+        String reservedSummary = summary + RESERVED_NUMBER;
+
+        List<Card> parts = new ArrayList<>();
+        for (Section section : sections) {
+            if (section == null) {
+                continue;
+            }
+            Section current = part.startSection(section.getActivityTitle(), section.getActivitySubtitle());
+            if (!part.fits(maxSize) && part.getSections().size() > 1) {
+                part.removeLastSection();
+                parts.add(part.card);
+                part = new Part(createPart(card, reservedSummary, new ArrayList<>(), null));
+                current = part.startSection(section.getActivityTitle(), section.getActivitySubtitle());
+            }
+            if (!part.fits(maxSize)) {
+                // message takes at most half of the card so there is still space for the facts
+                current = shortenSubtitle(part, current, maxSize / 2);
+            }
+
+            List<Fact> facts = section.getFacts() != null ? section.getFacts() : Collections.emptyList();
+            for (Fact fact : facts) {
+                if (part.add(current, fact)) {
+                    continue;
+                }
+                if (!fitsAnyCard(card, reservedSummary, section, fact)) {
+                    // fact that cannot be sent is left out and does not start the continuation card
+                    continue;
+                }
+                if (canContinue(part, current)) {
+                    parts.add(part.card);
+                    part = new Part(createPart(card, reservedSummary, new ArrayList<>(), null));
+                    // message of the section is not repeated by the continuation cards
+                    current = part.startSection(section.getActivityTitle(), null);
+                    if (part.add(current, fact)) {
+                        continue;
+                    }
+                }
+                shortenFact(part, current, fact);
+            }
+        }
+        parts.add(part.card);
+
+        List<Card> numbered = new ArrayList<>(parts.size());
+        for (int i = 0; i < parts.size(); i++) {
+            Card assembled = parts.get(i);
+            String partSummary = parts.size() > 1
+                    ? String.format("%s (%d/%d)", summary, i + 1, parts.size()) : singleSummary;
+            numbered.add(createPart(card, partSummary, assembled.getSections(), assembled.getPotentialAction()));
+        }
+        return numbered;
+    }
+
+    /**
+     * Checks if the fact with the value reduced to the truncation marker fits at least into an empty continuation card.
+     */
+    private boolean fitsAnyCard(Card card, String reservedSummary, Section section, Fact fact) {
+        Part empty = new Part(createPart(card, reservedSummary, new ArrayList<>(), null));
+        Section current = empty.startSection(section.getActivityTitle(), null);
+        return empty.add(current, new Fact(fact.getName(), truncate(fact.getValue(), 0)));
+    }
+
+    /**
+     * Checks if the card carries other facts that can be left on it when the fact is moved to the continuation card.
+     */
+    private static boolean canContinue(Part part, Section section) {
+        return part.getSections().size() > 1 || !section.getFacts().isEmpty();
+    }
+
+    /**
+     * Shortens the message of the last section which does not have any facts yet.
+     * Message that does not fit even when it is reduced to the truncation marker is left out.
+     */
+    private Section shortenSubtitle(Part part, Section section, int limit) {
+        part.removeLastSection();
+        boolean first = part.getSections().isEmpty();
+        int available = limit - part.size;
+        String title = section.getActivityTitle();
+        String subtitle = shorten(section.getActivitySubtitle(),
+                value -> sizeOfSection(new Section(title, value, new ArrayList<>()), first) <= available);
+        if (sizeOfSection(new Section(title, subtitle, new ArrayList<>()), first) > available) {
+            subtitle = null;
+        }
+        return part.startSection(title, subtitle);
+    }
+
+    /**
+     * Adds the fact with the value shortened to fit. Fact that does not fit even when its value is reduced
+     * to the truncation marker, e.g. because of its long name, is left out as it cannot be sent.
+     */
+    private void shortenFact(Part part, Section section, Fact fact) {
+        boolean first = section.getFacts().isEmpty();
+        int available = maxSize - part.size;
+        String value = shorten(fact.getValue(),
+                shortened -> sizeOfFact(new Fact(fact.getName(), shortened), first) <= available);
+        part.add(section, new Fact(fact.getName(), value));
+    }
+
+    /**
+     * Finds the longest part of the value that fits, the value is known to not fit as a whole.
+     */
+    private static String shorten(String value, Predicate<String> fits) {
+        if (value == null) {
+            return null;
+        }
+        int low = 0;
+        int high = value.length() - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (fits.test(truncate(value, middle))) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return truncate(value, low);
+    }
+
+    /**
+     * Cuts the value to passed number of characters and marks it as truncated.
+     */
+    static String truncate(String value, int length) {
+        if (value == null || value.length() <= length) {
+            return value;
+        }
+        // surrogate pair must not be split as its half cannot be encoded
+        int end = length > 0 && Character.isHighSurrogate(value.charAt(length - 1)) ? length - 1 : length;
+        return value.substring(0, end) + TRUNCATION_MARKER;
+    }
+
+    private static Card createPart(Card card, String summary, List<Section> sections, List<PotentialAction> potentialActions) {
+        Card part = new Card(summary, (Section) null);
+        part.setSections(sections);
+        part.setThemeColor(card.getThemeColor());
+        part.setPotentialAction(potentialActions);
+        return part;
+    }
+
+    private boolean fits(Card card) {
+        return measure(card) <= maxSize;
+    }
+
+    private int measure(Card card) {
+        return cardWriter.write(card).length;
+    }
+
+    /**
+     * Returns the number of bytes the section adds to the card, which depends only on the section itself
+     * and on whether it is the first one, because the elements of JSON array are written independently.
+     * It is measured on the card that holds just the section, so the card being assembled is not serialized again.
+     */
+    private int sizeOfSection(Section section, boolean first) {
+        List<Section> sections = first ? new ArrayList<>() : new ArrayList<>(Collections.singletonList(PROBE_SECTION));
+        Card probe = createProbe(sections);
+        int before = measure(probe);
+        sections.add(section);
+        return measure(probe) - before;
+    }
+
+    /**
+     * Returns the number of bytes the fact adds to the section, measured the same way as {@link #sizeOfSection}.
+     */
+    private int sizeOfFact(Fact fact, boolean first) {
+        List<Fact> facts = first ? new ArrayList<>() : new ArrayList<>(Collections.singletonList(PROBE_FACT));
+        Card probe = createProbe(Collections.singletonList(new Section(null, null, facts)));
+        int before = measure(probe);
+        facts.add(fact);
+        return measure(probe) - before;
+    }
+
+    private static Card createProbe(List<Section> sections) {
+        Card probe = new Card(null, (Section) null);
+        probe.setSections(sections);
+        return probe;
+    }
+
+    /**
+     * Card that is being assembled together with its encoded size, the size is updated by every added element
+     * so the checks whether the next fact fits do not depend on the number of facts already added.
+     */
+    private final class Part {
+
+        private final Card card;
+        private int size;
+
+        Part(Card card) {
+            this.card = card;
+            this.size = measure(card);
+        }
+
+        List<Section> getSections() {
+            return card.getSections();
+        }
+
+        boolean fits(int limit) {
+            return size <= limit;
+        }
+
+        Section startSection(String title, String subtitle) {
+            Section section = new Section(title, subtitle, new ArrayList<>());
+            size += sizeOfSection(section, card.getSections().isEmpty());
+            card.getSections().add(section);
+            return section;
+        }
+
+        void removeLastSection() {
+            List<Section> sections = card.getSections();
+            Section section = sections.remove(sections.size() - 1);
+            size -= sizeOfSection(section, sections.isEmpty());
+        }
+
+        /**
+         * Adds the fact to the section when the card stays within the size limit.
+         */
+        boolean add(Section section, Fact fact) {
+            int factSize = sizeOfFact(fact, section.getFacts().isEmpty());
+            if (size + factSize > maxSize) {
+                return false;
+            }
+            section.getFacts().add(fact);
+            size += factSize;
+            return true;
+        }
+    }
+}
@@ -19,7 +19,9 @@ import hudson.model.Result;
 import hudson.model.Run;
 import hudson.model.TaskListener;
 import jenkins.plugins.office365connector.model.Card;
+import jenkins.plugins.office365connector.model.Fact;
 import jenkins.plugins.office365connector.model.FactDefinition;
+import jenkins.plugins.office365connector.model.PotentialAction;
 import jenkins.plugins.office365connector.model.Section;
 import jenkins.plugins.office365connector.workflow.StepParameters;
 
@@ -29,70 +31,90 @@ import jenkins.plugins.office365connector.workflow.StepParameters;
 public class CardBuilder {
 
     private final Run run;
+    private final MacroEvaluator macroEvaluator;
 
-    private final FactsBuilder factsBuilder;
-    private final ActionableBuilder potentialActionBuilder;
+    // facts, summary and actions do not depend on the webhook so they are computed once and shared by all webhooks
+    private BuildSnapshot startedSnapshot;
+    private BuildSnapshot completedSnapshot;
 
     public CardBuilder(Run run, TaskListener taskListener) {
-        this.run = run;
+        this(run, new MacroEvaluator(run, taskListener));
+    }
 
-        factsBuilder = new FactsBuilder(run, taskListener);
-        potentialActionBuilder = new ActionableBuilder(run, factsBuilder);
+    public CardBuilder(Run run, MacroEvaluator macroEvaluator) {
+        this.run = run;
+        this.macroEvaluator = macroEvaluator;
     }
 
     public Card createStartedCard(List<FactDefinition> factDefinitions) {
+        if (startedSnapshot == null) {
+            startedSnapshot = createStartedSnapshot();
+        }
+        return startedSnapshot.createCard(factDefinitions);
+    }
+
+    private BuildSnapshot createStartedSnapshot() {
         final String statusName = "Started";
+        FactsBuilder factsBuilder = new FactsBuilder(run, macroEvaluator);
         factsBuilder.addStatus(statusName);
         factsBuilder.addRemarks();
         factsBuilder.addCommitters();
         factsBuilder.addDevelopers();
-        factsBuilder.addUserFacts(factDefinitions);
-
-        Section section = buildSection(statusName);
 
         String summary = getDisplayName() + ": Build " + getRunName();
-        Card card = new Card(summary, section);
-        card.setPotentialAction(potentialActionBuilder.buildActionable());
+        FactsBuilder pullRequestFacts = new FactsBuilder(run, macroEvaluator);
+        List<PotentialAction> potentialActions = new ActionableBuilder(run, pullRequestFacts).buildActionable();
 
-        return card;
+        return new BuildSnapshot(summary, statusName, null, factsBuilder.collect(), pullRequestFacts.collect(), potentialActions);
     }
 
     public Card createCompletedCard(List<FactDefinition> factDefinitions) {
+        if (completedSnapshot == null) {
+            completedSnapshot = createCompletedSnapshot();
+        }
+        return completedSnapshot.createCard(factDefinitions);
+    }
+
+    private BuildSnapshot createCompletedSnapshot() {
         // result might be null only for ongoing job - check documentation of Run.getCompletedResult()
         // but based on issue #133 it may happen that result for completed job is null
         Result lastResult = getCompletedResult(run);
 
-        Run previousBuild = run.getPreviousBuild();
-        Result previousResult = previousBuild != null ? previousBuild.getResult() : Result.SUCCESS;
-        Run lastNotFailedBuild = run.getPreviousNotFailedBuild();
+        Result previousResult;
+        int failingSince;
+        BuildHistoryIndex.Streak previousStreak = BuildHistoryIndex.get().getPrevious(run);
+        if (previousStreak != null) {
+            previousResult = previousStreak.getResult();
+            failingSince = previousStreak.getFailingSince();
+        } else {
+            Run previousBuild = run.getPreviousBuild();
+            previousResult = previousBuild != null ? previousBuild.getResult() : Result.SUCCESS;
+            // looked up only when needed as it may load many builds from the disk
+            failingSince = previousResult == Result.FAILURE ? getFailingSinceBuildNumber() : 0;
+        }
 
-        boolean isRepeatedFailure = isRepeatedFailure(previousResult, lastNotFailedBuild);
+        boolean isRepeatedFailure = failingSince > 0 && previousResult == Result.FAILURE;
         String summary = String.format("%s: Build %s %s", getDisplayName(), getRunName(),
                 calculateSummary(lastResult, previousResult, isRepeatedFailure));
         String status = calculateStatus(lastResult, previousResult, isRepeatedFailure);
 
-        if (lastResult == Result.FAILURE) {
-            Run failingSinceBuild = getFailingSinceBuild(lastNotFailedBuild);
-
-            if (failingSinceBuild != null && previousResult == Result.FAILURE) {
-                factsBuilder.addFailingSinceBuild(failingSinceBuild.getNumber());
-            }
+        FactsBuilder factsBuilder = new FactsBuilder(run, macroEvaluator);
+        if (lastResult == Result.FAILURE && isRepeatedFailure) {
+            factsBuilder.addFailingSinceBuild(failingSince);
         }
         factsBuilder.addStatus(status);
         factsBuilder.addRemarks();
         factsBuilder.addCommitters();
         factsBuilder.addDevelopers();
-        factsBuilder.addUserFacts(factDefinitions);
 
-        Section section = buildSection(status);
-
-        Card card = new Card(summary, section);
-        card.setThemeColor(getCardThemeColor(lastResult));
+        FactsBuilder pullRequestFacts = new FactsBuilder(run, macroEvaluator);
+        List<PotentialAction> potentialActions = null;
         if (run.getResult() != Result.SUCCESS) {
-            card.setPotentialAction(potentialActionBuilder.buildActionable());
+            potentialActions = new ActionableBuilder(run, pullRequestFacts).buildActionable();
         }
 
-        return card;
+        return new BuildSnapshot(summary, status, getCardThemeColor(lastResult),
+                factsBuilder.collect(), pullRequestFacts.collect(), potentialActions);
     }
 
     private static String getCardThemeColor(Result result) {
@@ -104,21 +126,20 @@ public class CardBuilder {
         }
     }
 
-    private Section buildSection(String status) {
+    private Section buildSection(String status, List<Fact> facts) {
         String activityTitle = "Notification from " + getEscapedDisplayName() + ": " + status;
         String activitySubtitle = "Latest status of build " + getRunName();
-        return new Section(activityTitle, activitySubtitle, factsBuilder.collect());
+        return new Section(activityTitle, activitySubtitle, facts);
     }
 
-    private boolean isRepeatedFailure(Result previousResult, Run lastNotFailedBuild) {
-        Run failingSinceRun = getFailingSinceBuild(lastNotFailedBuild);
-
-        return failingSinceRun != null && previousResult == Result.FAILURE;
-    }
-
-    private Run getFailingSinceBuild(Run lastNotFailedBuild) {
-        return lastNotFailedBuild != null
+    /**
+     * Returns number of the first build of the failure streak or <code>0</code> when it is not known.
+     */
+    private int getFailingSinceBuildNumber() {
+        Run lastNotFailedBuild = run.getPreviousNotFailedBuild();
+        Run failingSinceRun = lastNotFailedBuild != null
                 ? lastNotFailedBuild.getNextBuild() : run.getParent().getFirstBuild();
+        return failingSinceRun != null ? failingSinceRun.getNumber() : 0;
     }
 
     String calculateStatus(Result lastResult, Result previousResult, boolean isRepeatedFailure) {
@@ -179,6 +200,7 @@ public class CardBuilder {
     }
 
     public Card createBuildMessageCard(StepParameters stepParameters) {
+        FactsBuilder factsBuilder = new FactsBuilder(run, macroEvaluator);
         if (stepParameters.getStatus() != null) {
             factsBuilder.addStatus(stepParameters.getStatus());
         }
@@ -194,7 +216,7 @@ public class CardBuilder {
             card.setThemeColor(stepParameters.getColor());
         }
 
-        card.setPotentialAction(potentialActionBuilder.buildActionable());
+        card.setPotentialAction(new ActionableBuilder(run, factsBuilder).buildActionable());
 
         return card;
     }
@@ -222,4 +244,44 @@ public class CardBuilder {
         // TODO: test case when the build number is changed to custom name
         return run.hasCustomDisplayName() ? run.getDisplayName() : "#" + run.getNumber();
     }
+
+    /**
+     * Part of the card that is the same for all webhooks.
+     */
+    private final class BuildSnapshot {
+
+        private final String summary;
+        private final String status;
+        private final String themeColor;
+        private final List<Fact> facts;
+        private final List<Fact> pullRequestFacts;
+        private final List<PotentialAction> potentialActions;
+
+        BuildSnapshot(String summary, String status, String themeColor, List<Fact> facts,
+                      List<Fact> pullRequestFacts, List<PotentialAction> potentialActions) {
+            this.summary = summary;
+            this.status = status;
+            this.themeColor = themeColor;
+            this.facts = facts;
+            this.pullRequestFacts = pullRequestFacts;
+            this.potentialActions = potentialActions;
+        }
+
+        /**
+         * Creates card extended by the facts defined for the webhook.
+         */
+        Card createCard(List<FactDefinition> factDefinitions) {
+            FactsBuilder factsBuilder = new FactsBuilder(run, macroEvaluator);
+            facts.forEach(factsBuilder::addFact);
+            factsBuilder.addUserFacts(factDefinitions);
+            pullRequestFacts.forEach(factsBuilder::addFact);
+
+            Card card = new Card(summary, buildSection(status, factsBuilder.collect()));
+            if (themeColor != null) {
+                card.setThemeColor(themeColor);
+            }
+            card.setPotentialAction(potentialActions);
+            return card;
+        }
+    }
 }
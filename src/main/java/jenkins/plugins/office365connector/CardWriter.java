@@ -0,0 +1,176 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jenkins.plugins.office365connector;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import com.google.gson.stream.JsonWriter;
+import jenkins.plugins.office365connector.model.Card;
+import jenkins.plugins.office365connector.model.Fact;
+import jenkins.plugins.office365connector.model.PotentialAction;
+import jenkins.plugins.office365connector.model.Section;
+
+/**
+ * Serializes the {@link Card} straight into UTF-8 bytes without building the JSON as a String first.
+ * Output is the same as produced by Gson for the model classes, so both can be used interchangeably.
+ * Buffers are pooled per thread as the cards are serialized by the threads that handle builds.
+ */
+public class CardWriter {
+
+    private static final int INITIAL_BUFFER_SIZE = 8 * 1024;
+
+    /**
+     * Buffers that grew above this size are not kept so single huge card does not pin the memory.
+     */
+    private static final int MAX_POOLED_BUFFER_SIZE = 256 * 1024;
+
+    private static final ThreadLocal<Buffer> BUFFERS = ThreadLocal.withInitial(Buffer::new);
+
+    private final boolean prettyPrint;
+
+    public CardWriter(boolean prettyPrint) {
+        this.prettyPrint = prettyPrint;
+    }
+
+    /**
+     * Serializes passed card.
+     *
+     * @param card card to serialize
+     * @return JSON encoded with UTF-8
+     */
+    public byte[] write(Card card) {
+        Buffer buffer = BUFFERS.get();
+        try {
+            write(card, buffer.writer);
+            buffer.writer.flush();
+            return buffer.toByteArray();
+        } catch (IOException e) {
+            // writing to memory does not fail
+            throw new IllegalStateException(e);
+        } finally {
+            if (buffer.size() > MAX_POOLED_BUFFER_SIZE) {
+                BUFFERS.remove();
+            } else {
+                buffer.reset();
+            }
+        }
+    }
+
+    void write(Card card, Writer out) throws IOException {
+        JsonWriter writer = new JsonWriter(out);
+        // the same settings as used by Gson by default
+        writer.setHtmlSafe(true);
+        writer.setSerializeNulls(false);
+        if (prettyPrint) {
+            writer.setIndent("  ");
+        }
+        if (card == null) {
+            writer.nullValue();
+            writer.flush();
+            return;
+        }
+
+        writer.beginObject();
+        writer.name("summary").value(card.getSummary());
+        writer.name("themeColor").value(card.getThemeColor());
+        if (card.getSections() != null) {
+            writer.name("sections").beginArray();
+            for (Section section : card.getSections()) {
+                writeSection(writer, section);
+            }
+            writer.endArray();
+        }
+        if (card.getPotentialAction() != null) {
+            writer.name("potentialAction").beginArray();
+            for (PotentialAction action : card.getPotentialAction()) {
+                writePotentialAction(writer, action);
+            }
+            writer.endArray();
+        }
+        writer.endObject();
+        // JsonWriter.close() would close the underlying writer which is reused
+        writer.flush();
+    }
+
+    private static void writeSection(JsonWriter writer, Section section) throws IOException {
+        if (section == null) {
+            writer.nullValue();
+            return;
+        }
+        writer.beginObject();
+        writer.name("markdown").value(section.getMarkdown());
+        if (section.getFacts() != null) {
+            writer.name("facts").beginArray();
+            for (Fact fact : section.getFacts()) {
+                writeFact(writer, fact);
+            }
+            writer.endArray();
+        }
+        writer.name("activityTitle").value(section.getActivityTitle());
+        writer.name("activitySubtitle").value(section.getActivitySubtitle());
+        writer.endObject();
+    }
+
+    private static void writeFact(JsonWriter writer, Fact fact) throws IOException {
+        if (fact == null) {
+            writer.nullValue();
+            return;
+        }
+        writer.beginObject();
+        writer.name("name").value(fact.getName());
+        writer.name("value").value(fact.getValue());
+        writer.endObject();
+    }
+
+    private static void writePotentialAction(JsonWriter writer, PotentialAction action) throws IOException {
+        if (action == null) {
+            writer.nullValue();
+            return;
+        }
+        writer.beginObject();
+        writer.name("@context").value(action.getContext());
+        writer.name("@type").value(action.getType());
+        writer.name("name").value(action.getName());
+        writeStrings(writer, "target", action.getTarget());
+        writer.endObject();
+    }
+
+    private static void writeStrings(JsonWriter writer, String name, List<String> values) throws IOException {
+        if (values == null) {
+            return;
+        }
+        writer.name(name).beginArray();
+        for (String value : values) {
+            writer.value(value);
+        }
+        writer.endArray();
+    }
+
+    /**
+     * Byte buffer together with the writer that encodes characters into it.
+     */
+    private static final class Buffer extends ByteArrayOutputStream {
+
+        private final Writer writer = new OutputStreamWriter(this, StandardCharsets.UTF_8);
+
+        Buffer() {
+            super(INITIAL_BUFFER_SIZE);
+        }
+    }
+}
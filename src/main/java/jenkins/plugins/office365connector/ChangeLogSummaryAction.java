@@ -0,0 +1,157 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jenkins.plugins.office365connector;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import hudson.model.InvisibleAction;
+import hudson.model.Run;
+import hudson.scm.ChangeLogSet;
+import jenkins.scm.RunWithSCM;
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
+
+/**
+ * Summary of the changes of the build, computed once and reused by all cards of the build,
+ * because reading the change log may mean parsing its files for every card.
+ * It is stored with the build, so it is also available in the remote API of the build.
+ * The summary is computed again when the change log of the running build has changed since, e.g. after next checkout,
+ * which is detected by the identity of the change sets, so neither the commits are read
+ * nor the parsed change log is referenced.
+ */
+@ExportedBean
+public class ChangeLogSummaryAction extends InvisibleAction {
+
+    /**
+     * Number of the path prefixes that are kept, changes of the whole repository would make the build file huge.
+     */
+    static final int MAX_PATH_PREFIXES = 50;
+
+    private final List<String> authors;
+    private final int commitCount;
+    private final List<String> pathPrefixes;
+
+    /**
+     * Identity of the change sets the summary was computed from, it is meaningful only for the running build.
+     */
+    private transient int changeSetsIdentity;
+
+    /**
+     * Set when the summary was computed while the build was running, so its change log may still grow.
+     * It is not stored, the summary loaded together with the build is final.
+     */
+    private transient volatile boolean provisional;
+
+    ChangeLogSummaryAction(List<String> authors, int commitCount, List<String> pathPrefixes, int changeSetsIdentity) {
+        this.authors = authors;
+        this.commitCount = commitCount;
+        this.pathPrefixes = pathPrefixes;
+        this.changeSetsIdentity = changeSetsIdentity;
+    }
+
+    /**
+     * Returns the summary attached to the build, it is computed and attached when it is missing or out of date.
+     *
+     * @param run build with the change log
+     * @return summary of the changes
+     */
+    public static ChangeLogSummaryAction of(Run run) {
+        ChangeLogSummaryAction summary = run.getAction(ChangeLogSummaryAction.class);
+        boolean building = run.isBuilding();
+        if (summary != null && !summary.provisional && !building) {
+            // change log of completed build does not change
+            return summary;
+        }
+        List<ChangeLogSet<? extends ChangeLogSet.Entry>> changeSets = run instanceof RunWithSCM
+                ? ((RunWithSCM<?, ?>) run).getChangeSets() : Collections.emptyList();
+        if (summary == null || !summary.isComputedFrom(changeSets)) {
+            summary = create(changeSets);
+            run.addOrReplaceAction(summary);
+        }
+        summary.provisional = building;
+        return summary;
+    }
+
+    /**
+     * Checks if the summary was computed from the same change sets, which does not read any of their commits.
+     * The change set gets new commits only when it is replaced, e.g. after next checkout.
+     */
+    private boolean isComputedFrom(List<ChangeLogSet<? extends ChangeLogSet.Entry>> changeSets) {
+        return getIdentity(changeSets) == changeSetsIdentity;
+    }
+
+    static int getIdentity(List<ChangeLogSet<? extends ChangeLogSet.Entry>> changeSets) {
+        int identity = changeSets.size();
+        for (ChangeLogSet<? extends ChangeLogSet.Entry> changeSet : changeSets) {
+            identity = 31 * identity + System.identityHashCode(changeSet);
+        }
+        return identity;
+    }
+
+    static ChangeLogSummaryAction create(List<ChangeLogSet<? extends ChangeLogSet.Entry>> changeSets) {
+        // names are sorted once they are all known, the users are not compared with each other
+        Set<String> authors = new TreeSet<>();
+        Set<String> pathPrefixes = new TreeSet<>();
+        int commitCount = 0;
+        for (ChangeLogSet<? extends ChangeLogSet.Entry> changeSet : changeSets) {
+            for (ChangeLogSet.Entry entry : changeSet) {
+                commitCount++;
+                // the change log resolves the author itself, so reading the name costs nothing more
+                authors.add(entry.getAuthor().getFullName());
+                for (String path : entry.getAffectedPaths()) {
+                    pathPrefixes.add(getPathPrefix(path));
+                }
+            }
+        }
+        List<String> prefixes = new ArrayList<>(pathPrefixes);
+        if (prefixes.size() > MAX_PATH_PREFIXES) {
+            prefixes = new ArrayList<>(prefixes.subList(0, MAX_PATH_PREFIXES));
+        }
+        return new ChangeLogSummaryAction(new ArrayList<>(authors), commitCount, prefixes, getIdentity(changeSets));
+    }
+
+    /**
+     * Returns top level directory of the path or the path itself for the files in the root directory.
+     */
+    static String getPathPrefix(String path) {
+        String trimmed = path.startsWith("/") ? path.substring(1) : path;
+        int slash = trimmed.indexOf('/');
+        return slash > 0 ? trimmed.substring(0, slash + 1) : trimmed;
+    }
+
+    /**
+     * Returns sorted full names of the authors of the changes.
+     */
+    @Exported
+    public List<String> getAuthors() {
+        return Collections.unmodifiableList(authors);
+    }
+
+    @Exported
+    public int getCommitCount() {
+        return commitCount;
+    }
+
+    /**
+     * Returns sorted top level directories changed by the build.
+     */
+    @Exported
+    public List<String> getPathPrefixes() {
+        return Collections.unmodifiableList(pathPrefixes);
+    }
+}
@@ -0,0 +1,213 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jenkins.plugins.office365connector;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import jenkins.util.SystemProperties;
+
+/**
+ * Stops sending notifications to the webhook that keeps failing, so the builds do not waste time on the cards
+ * and the delivery threads on the requests that time out. After configured number of consecutive failures the circuit
+ * of the webhook opens and notifications are not sent but kept in the {@link DeadLetterStore}. When the cool-down passes single request is let through
+ * and its result decides if the circuit is closed again or stays open for another cool-down.
+ * Probe that has not reported its result within the cool-down is considered lost and another one is let through.
+ * Only webhooks that have failed are tracked, success forgets the webhook.
+ * <ul>
+ *     <li><code>jenkins.plugins.office365connector.CircuitBreaker.failureThreshold</code> (default 5, 0 disables the breaker)</li>
+ *     <li><code>jenkins.plugins.office365connector.CircuitBreaker.coolDown</code> (default 60000 ms)</li>
+ * </ul>
+ */
+public final class CircuitBreaker {
+
+    private static final Logger LOGGER = Logger.getLogger(CircuitBreaker.class.getName());
+
+    static final int FAILURE_THRESHOLD = SystemProperties.getInteger(CircuitBreaker.class.getName() + ".failureThreshold", 5);
+    static final long COOL_DOWN = SystemProperties.getLong(CircuitBreaker.class.getName() + ".coolDown", 60000L);
+
+    private static final CircuitBreaker INSTANCE = new CircuitBreaker(FAILURE_THRESHOLD, COOL_DOWN);
+
+    private final int failureThreshold;
+    private final long coolDownNanos;
+
+    private final Map<String, Circuit> circuits = new ConcurrentHashMap<>();
+
+    CircuitBreaker(int failureThreshold, long coolDown) {
+        this.failureThreshold = failureThreshold;
+        this.coolDownNanos = TimeUnit.MILLISECONDS.toNanos(coolDown);
+    }
+
+    public static CircuitBreaker get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Checks if notifications to the webhook are dropped right now. Unlike {@link #allowRequest(String)}
+     * it does not let the probing request through, so it can be used to skip the work before the request is made.
+     *
+     * @param url webhook URL
+     * @return <code>true</code> if the request would be rejected
+     */
+    public boolean isOpen(String url) {
+        return isOpen(url, System.nanoTime());
+    }
+
+    boolean isOpen(String url, long now) {
+        Circuit circuit = getCircuit(url);
+        return circuit != null && circuit.isOpen(now);
+    }
+
+    /**
+     * Decides if the request to the webhook can be sent. When the cool-down has passed the caller
+     * becomes the probe whose result is reported with {@link #recordSuccess(String)} or {@link #recordFailure(String)}.
+     *
+     * @param url webhook URL
+     * @return <code>true</code> if the request can be sent
+     */
+    public boolean allowRequest(String url) {
+        return allowRequest(url, System.nanoTime());
+    }
+
+    boolean allowRequest(String url, long now) {
+        Circuit circuit = getCircuit(url);
+        return circuit == null || circuit.allowRequest(url, now);
+    }
+
+    /**
+     * Reports that the webhook has responded.
+     *
+     * @param url webhook URL
+     */
+    public void recordSuccess(String url) {
+        if (url == null) {
+            return;
+        }
+        // removed atomically, so the failure recorded at the same time is not lost with the removed circuit
+        circuits.computeIfPresent(url, (key, circuit) -> {
+            if (circuit.getState() != State.CLOSED) {
+                LOGGER.log(Level.INFO, "Webhook {0} responds again, notifications are sent", DeliveryMetrics.getHost(url));
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Reports that the webhook has not responded or has failed.
+     *
+     * @param url webhook URL
+     */
+    public void recordFailure(String url) {
+        recordFailure(url, System.nanoTime());
+    }
+
+    void recordFailure(String url, long now) {
+        if (failureThreshold <= 0 || url == null) {
+            return;
+        }
+        circuits.compute(url, (key, circuit) -> {
+            Circuit current = circuit != null ? circuit : new Circuit();
+            current.recordFailure(url, now);
+            return current;
+        });
+    }
+
+    /**
+     * Returns state of the circuit of the webhook.
+     *
+     * @param url webhook URL
+     * @return state of the circuit
+     */
+    public State getState(String url) {
+        Circuit circuit = getCircuit(url);
+        return circuit != null ? circuit.getState() : State.CLOSED;
+    }
+
+    /**
+     * Returns number of webhooks to which notifications are not sent.
+     *
+     * @return number of open circuits
+     */
+    public int getOpenCount() {
+        return (int) circuits.values().stream().filter(circuit -> circuit.getState() != State.CLOSED).count();
+    }
+
+    private Circuit getCircuit(String url) {
+        return url != null ? circuits.get(url) : null;
+    }
+
+    public enum State {
+        /**
+         * Notifications are sent.
+         */
+        CLOSED,
+        /**
+         * Notifications are dropped until the cool-down passes.
+         */
+        OPEN,
+        /**
+         * Single request checks if the webhook works again, other notifications are dropped.
+         */
+        HALF_OPEN
+    }
+
+    /**
+     * State of single webhook.
+     */
+    private final class Circuit {
+
+        private State state = State.CLOSED;
+        private int consecutiveFailures;
+        private long openedAt;
+        private long probedAt;
+
+        synchronized State getState() {
+            return state;
+        }
+
+        synchronized boolean isOpen(long now) {
+            return state == State.HALF_OPEN && now - probedAt < coolDownNanos
+                    || state == State.OPEN && now - openedAt < coolDownNanos;
+        }
+
+        synchronized boolean allowRequest(String url, long now) {
+            if (state == State.CLOSED) {
+                return true;
+            }
+            if (state == State.OPEN && now - openedAt >= coolDownNanos
+                    // probe may have ended without any result, it must not block the webhook forever
+                    || state == State.HALF_OPEN && now - probedAt >= coolDownNanos) {
+                state = State.HALF_OPEN;
+                probedAt = now;
+                LOGGER.log(Level.FINE, "Checking if webhook {0} responds again", DeliveryMetrics.getHost(url));
+                return true;
+            }
+            return false;
+        }
+
+        synchronized void recordFailure(String url, long now) {
+            consecutiveFailures++;
+            if (state == State.HALF_OPEN || state == State.CLOSED && consecutiveFailures >= failureThreshold) {
+                state = State.OPEN;
+                openedAt = now;
+                // URL of the webhook contains its secret token
+                LOGGER.log(Level.WARNING, "Webhook {0} has failed {1} times in a row, notifications are not sent for {2} ms",
+                        new Object[]{DeliveryMetrics.getHost(url), consecutiveFailures, TimeUnit.NANOSECONDS.toMillis(coolDownNanos)});
+            }
+        }
+    }
+}
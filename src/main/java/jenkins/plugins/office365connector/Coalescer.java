@@ -0,0 +1,230 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jenkins.plugins.office365connector;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import hudson.init.Terminator;
+import hudson.util.LogTaskListener;
+import jenkins.plugins.office365connector.model.Card;
+import jenkins.plugins.office365connector.model.Section;
+import jenkins.util.SystemProperties;
+import jenkins.util.Timer;
+
+/**
+ * Merges notifications sent to the same webhook within configured time window into single digest card,
+ * with one section for every build, so the webhook receives one request instead of many when lots of builds
+ * finish at the same time. Digest is limited by number of sections and by size and split when needed.
+ * Every card is written into the {@link Outbox} when it is added, so it is not lost when Jenkins stops
+ * within the coalescing window, and acknowledged once the digest is queued and journaled instead.
+ * <ul>
+ *     <li><code>jenkins.plugins.office365connector.Coalescer.maxSections</code> (default 10)</li>
+ *     <li><code>jenkins.plugins.office365connector.Coalescer.maxSize</code> (default 24 KB)</li>
+ * </ul>
+ */
+public final class Coalescer {
+
+    private static final Logger LOGGER = Logger.getLogger(Coalescer.class.getName());
+
+    static final int MAX_SECTIONS = SystemProperties.getInteger(Coalescer.class.getName() + ".maxSections", 10);
+    static final int MAX_SIZE = SystemProperties.getInteger(Coalescer.class.getName() + ".maxSize", 24 * 1024);
+
+    /**
+     * Milestone reached during shutdown when collected notifications have been passed to the {@link DeliveryQueue},
+     * which is drained only after it.
+     */
+    static final String FLUSHED = "jenkins.plugins.office365connector.Coalescer.flushed";
+
+    private static final Coalescer INSTANCE = new Coalescer();
+
+    private final CardWriter cardWriter = new CardWriter(Office365ConnectorWebhookNotifier.PRETTY_PRINT);
+    private final CardAssembler cardAssembler = new CardAssembler(cardWriter);
+
+    private final Map<String, Batch> batches = new HashMap<>();
+
+    Coalescer() {
+    }
+
+    public static Coalescer get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Adds the card to the digest that will be sent to passed URL when the coalescing window of the webhook ends.
+     *
+     * @param url     expanded URL of the webhook
+     * @param webhook webhook to which the notification is sent
+     * @param card    notification
+     * @param logger  build log
+     */
+    public void add(String url, Webhook webhook, Card card, PrintStream logger) {
+        RetryPolicy retryPolicy = ExponentialBackoffRetryPolicy.of(webhook);
+        List<Long> outboxIds = journal(url, card, webhook.getTimeout(), retryPolicy);
+        boolean scheduled;
+        synchronized (this) {
+            Batch batch = batches.get(url);
+            scheduled = batch == null;
+            if (scheduled) {
+                batch = new Batch(webhook.getTimeout(), retryPolicy);
+                batches.put(url, batch);
+            }
+            batch.cards.add(card);
+            batch.outboxIds.addAll(outboxIds);
+        }
+        if (scheduled) {
+            Timer.get().schedule(() -> flush(url), webhook.getCoalescingWindow(), TimeUnit.SECONDS);
+        }
+        logger.println(String.format("[Office365connector] Notification to %s will be sent within %d seconds together with other notifications",
+                url, webhook.getCoalescingWindow()));
+    }
+
+    /**
+     * Writes the card into the outbox the same way as it would be sent alone, so it is delivered after the restart.
+     */
+    private List<Long> journal(String url, Card card, int timeout, RetryPolicy retryPolicy) {
+        Outbox outbox = Outbox.get();
+        List<Long> outboxIds = new ArrayList<>();
+        if (!outbox.isEnabled()) {
+            return outboxIds;
+        }
+        for (byte[] data : cardAssembler.write(card)) {
+            long id = outbox.journal(url, data, timeout, retryPolicy);
+            if (id != 0) {
+                outboxIds.add(id);
+            }
+        }
+        return outboxIds;
+    }
+
+    /**
+     * Sends all cards collected for passed URL.
+     */
+    void flush(String url) {
+        Batch batch;
+        synchronized (this) {
+            batch = batches.remove(url);
+        }
+        if (batch == null) {
+            return;
+        }
+        // builds that added the cards may have already finished and their logs are closed
+        PrintStream logger = new LogTaskListener(Logger.getLogger(HttpWorker.class.getName()), Level.INFO).getLogger();
+        for (Card digest : merge(batch.cards, MAX_SECTIONS, MAX_SIZE)) {
+            // single card is not merged, so it may still be too big for the webhook
+            for (byte[] data : cardAssembler.write(digest)) {
+                HttpWorker worker = new HttpWorker(url, data, batch.timeout, batch.retryPolicy, logger);
+                try {
+                    DeliveryQueue.get().enqueue(worker);
+                } catch (RejectedExecutionException e) {
+                    LOGGER.log(Level.WARNING, "Delivery queue is full, digest to {0} was dropped", url);
+                }
+            }
+        }
+        // digests are journaled by the queue, the cards would be sent twice after the restart
+        Outbox outbox = Outbox.get();
+        batch.outboxIds.forEach(outbox::acknowledge);
+    }
+
+    /**
+     * Merges passed cards into as few digests as possible without exceeding the limits.
+     */
+    List<Card> merge(List<Card> cards, int maxSections, int maxSize) {
+        List<Card> digests = new ArrayList<>();
+        List<Card> group = new ArrayList<>();
+        int sections = 0;
+        for (Card card : cards) {
+            int cardSections = card.getSections().size();
+            if (!group.isEmpty() && sections + cardSections > maxSections) {
+                addDigests(digests, group, maxSize);
+                group = new ArrayList<>();
+                sections = 0;
+            }
+            group.add(card);
+            sections += cardSections;
+        }
+        if (!group.isEmpty()) {
+            addDigests(digests, group, maxSize);
+        }
+        return digests;
+    }
+
+    private void addDigests(List<Card> digests, List<Card> group, int maxSize) {
+        if (group.size() == 1) {
+            // nothing to merge so the card is sent unchanged, with its actions
+            digests.add(group.get(0));
+            return;
+        }
+        Card digest = createDigest(group);
+        if (cardWriter.write(digest).length <= maxSize) {
+            digests.add(digest);
+        } else {
+            int half = group.size() / 2;
+            addDigests(digests, group.subList(0, half), maxSize);
+            addDigests(digests, group.subList(half, group.size()), maxSize);
+        }
+    }
+
+    private static Card createDigest(List<Card> cards) {
+        List<Section> sections = new ArrayList<>();
+        for (Card card : cards) {
+            sections.addAll(card.getSections());
+        }
+        Card digest = new Card(cards.size() + " build notifications", (Section) null);
+        digest.setSections(sections);
+        // color is kept only when it means the same for all builds
+        String themeColor = cards.get(0).getThemeColor();
+        if (cards.stream().allMatch(card -> Objects.equals(card.getThemeColor(), themeColor))) {
+            digest.setThemeColor(themeColor);
+        }
+        return digest;
+    }
+
+    /**
+     * Sends collected notifications when Jenkins is going down, before the {@link DeliveryQueue} is drained
+     * and the {@link Outbox} is closed, so they are still delivered or journaled.
+     */
+    @Terminator(requires = NotificationPipeline.STOPPED, attains = FLUSHED)
+    public static void shutdown() {
+        List<String> urls;
+        synchronized (INSTANCE) {
+            urls = new ArrayList<>(INSTANCE.batches.keySet());
+        }
+        urls.forEach(INSTANCE::flush);
+    }
+
+    /**
+     * Cards collected for single URL.
+     */
+    private static final class Batch {
+
+        private final int timeout;
+        private final RetryPolicy retryPolicy;
+        private final List<Card> cards = new ArrayList<>();
+        private final List<Long> outboxIds = new ArrayList<>();
+
+        Batch(int timeout, RetryPolicy retryPolicy) {
+            this.timeout = timeout;
+            this.retryPolicy = retryPolicy;
+        }
+    }
+}
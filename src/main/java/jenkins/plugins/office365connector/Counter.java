@@ -0,0 +1,73 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jenkins.plugins.office365connector;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts work that the plugin managed to avoid or had to do. Counters are updated from many threads
+ * so they are backed by {@link LongAdder} which does not contend on the hot path.
+ */
+public enum Counter {
+
+    /**
+     * Webhook URLs that were not expanded because they do not contain any variable
+     * or were already expanded for the same event.
+     */
+    SKIPPED_URL_EXPANSIONS,
+
+    /**
+     * Webhook URLs that were expanded with the environment already computed for the same event.
+     */
+    REUSED_ENVIRONMENTS,
+
+    /**
+     * Templates that were not passed to the token macro because they do not contain any macro.
+     */
+    SKIPPED_MACRO_EVALUATIONS,
+
+    /**
+     * Templates which value was already evaluated for the same event.
+     */
+    MACRO_CACHE_HITS,
+
+    /**
+     * Templates that had to be evaluated by the token macro.
+     */
+    MACRO_CACHE_MISSES,
+
+    /**
+     * Start notifications that were not sent because the build had finished within the grace period.
+     */
+    SAVED_START_NOTIFICATIONS,
+
+    /**
+     * Cards that exceeded the size accepted by the webhook and had to be truncated or split, see {@link CardAssembler}.
+     */
+    OVERSIZED_CARDS;
+
+    private final LongAdder value = new LongAdder();
+
+    public void increment() {
+        value.increment();
+    }
+
+    public long get() {
+        return value.sum();
+    }
+
+    void reset() {
+        value.reset();
+    }
+}
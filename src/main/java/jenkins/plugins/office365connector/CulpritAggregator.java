@@ -0,0 +1,171 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jenkins.plugins.office365connector;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import hudson.model.Job;
+import hudson.model.Result;
+import hudson.model.Run;
+import jenkins.scm.RunWithSCM;
+import jenkins.util.SystemProperties;
+
+/**
+ * Collects culprits of the builds, which are authors of the changes made since the last successful build.
+ * Authors of every completed build are carried forward to the next one while the builds do not succeed,
+ * so the culprits are known without walking the change logs of all failed builds and resolving all their users.
+ * Only authors of the latest builds are kept and only some of them are reported. When the previous build
+ * is not known, for instance after restart, culprits computed by Jenkins are used once and carried forward from then.
+ * Their names are then looked up by the ids in the {@link UserNameCache}.
+ * <ul>
+ *     <li><code>jenkins.plugins.office365connector.CulpritAggregator.maxDepth</code> (default 20)</li>
+ *     <li><code>jenkins.plugins.office365connector.CulpritAggregator.maxNames</code> (default 10)</li>
+ * </ul>
+ */
+public final class CulpritAggregator {
+
+    static final int MAX_DEPTH = SystemProperties.getInteger(CulpritAggregator.class.getName() + ".maxDepth", 20);
+    static final int MAX_NAMES = SystemProperties.getInteger(CulpritAggregator.class.getName() + ".maxNames", 10);
+
+    private static final CulpritAggregator INSTANCE = new CulpritAggregator(MAX_DEPTH);
+
+    private final int maxDepth;
+
+    private final Map<String, Culprits> culprits = new ConcurrentHashMap<>();
+
+    CulpritAggregator(int maxDepth) {
+        this.maxDepth = maxDepth;
+    }
+
+    public static CulpritAggregator get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Carries culprits of the completed build forward, so they are known by the next build.
+     * It reads the change log so it should not be called by the thread that completes the build.
+     *
+     * @param run completed build
+     */
+    public void record(Run run) {
+        String name = getJobName(run);
+        if (name == null || run.getResult() == null || !(run instanceof RunWithSCM)
+                || run.getParent().getProperty(WebhookJobProperty.class) == null) {
+            return;
+        }
+        synchronized (this) {
+            Culprits last = culprits.get(name);
+            if (last != null && last.number >= run.getNumber()) {
+                // older build that has finished after the newer one
+                return;
+            }
+            culprits.put(name, new Culprits(run.getNumber(), run.getResult(), collect(run, last)));
+        }
+    }
+
+    /**
+     * Returns sorted names of the culprits of the build.
+     *
+     * @param run build for which the notification is sent
+     * @return names of the culprits
+     */
+    public Set<String> getCulprits(Run run) {
+        if (!(run instanceof RunWithSCM)) {
+            return new TreeSet<>();
+        }
+        String name = getJobName(run);
+        Culprits last = name != null ? culprits.get(name) : null;
+        if (last != null && last.number == run.getNumber()) {
+            return union(last.authors);
+        }
+        return union(collect(run, last));
+    }
+
+    private Deque<Set<String>> collect(Run run, Culprits last) {
+        Deque<Set<String>> authors = new ArrayDeque<>();
+        if (last == null || last.number != run.getNumber() - 1) {
+            // nothing to carry forward, culprits are taken from Jenkins
+            authors.add(getNames(((RunWithSCM<?, ?>) run).getCulpritIds()));
+            return authors;
+        }
+        if (last.result.isWorseThan(Result.SUCCESS)) {
+            authors.addAll(last.authors);
+        }
+        authors.add(getAuthors(run));
+        while (authors.size() > maxDepth) {
+            authors.removeFirst();
+        }
+        return authors;
+    }
+
+    private static Set<String> getAuthors(Run run) {
+        return new TreeSet<>(ChangeLogSummaryAction.of(run).getAuthors());
+    }
+
+    private static Set<String> getNames(Collection<String> ids) {
+        UserNameCache userNames = UserNameCache.get();
+        return ids.stream().map(userNames::getFullName).collect(Collectors.toCollection(TreeSet::new));
+    }
+
+    private static Set<String> union(Collection<Set<String>> authors) {
+        Set<String> names = new TreeSet<>();
+        authors.forEach(names::addAll);
+        return names;
+    }
+
+    private static String getJobName(Run run) {
+        Job job = run.getParent();
+        return job != null ? job.getFullName() : null;
+    }
+
+    /**
+     * Joins the names, only given number of them is listed and the rest is counted.
+     *
+     * @param names    names to join
+     * @param maxNames number of listed names
+     * @return joined names
+     */
+    public static String join(Collection<String> names, int maxNames) {
+        List<String> listed = new ArrayList<>(names);
+        if (listed.size() <= maxNames) {
+            return String.join(", ", listed);
+        }
+        return String.join(", ", listed.subList(0, maxNames)) + " +" + (listed.size() - maxNames) + " more";
+    }
+
+    /**
+     * Authors of the latest builds of single job, from the oldest to the newest build.
+     */
+    private static final class Culprits {
+
+        private final int number;
+        private final Result result;
+        private final Deque<Set<String>> authors;
+
+        Culprits(int number, Result result, Deque<Set<String>> authors) {
+            this.number = number;
+            this.result = result;
+            this.authors = authors;
+        }
+    }
+}
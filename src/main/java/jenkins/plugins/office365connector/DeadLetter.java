@@ -0,0 +1,115 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jenkins.plugins.office365connector;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
+
+/**
+ * Notification that could not be delivered, kept by {@link DeadLetterStore} until it is replayed or purged.
+ * URL of the webhook contains the secret so only its host is exported.
+ */
+@ExportedBean(defaultVisibility = 2)
+public class DeadLetter {
+
+    private final long id;
+    private final long timestamp;
+    private final String url;
+    private final String payload;
+    private final int timeout;
+    private final int maxAttempts;
+    private final long maxDelay;
+    private final List<DeliveryFailure> attempts;
+
+    public DeadLetter(long id, long timestamp, String url, String payload, int timeout, int maxAttempts, long maxDelay,
+                      List<DeliveryFailure> attempts) {
+        this.id = id;
+        this.timestamp = timestamp;
+        this.url = url;
+        this.payload = payload;
+        this.timeout = timeout;
+        this.maxAttempts = maxAttempts;
+        this.maxDelay = maxDelay;
+        this.attempts = new ArrayList<>(attempts);
+    }
+
+    DeadLetter withId(long newId) {
+        return new DeadLetter(newId, timestamp, url, payload, timeout, maxAttempts, maxDelay, attempts);
+    }
+
+    @Exported
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Returns when the notification was given up.
+     */
+    @Exported
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public Date getTime() {
+        return new Date(timestamp);
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    @Exported
+    public String getHost() {
+        return DeliveryMetrics.getHost(url);
+    }
+
+    @Exported
+    public String getPayload() {
+        return payload;
+    }
+
+    public int getTimeout() {
+        return timeout;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public long getMaxDelay() {
+        return maxDelay;
+    }
+
+    /**
+     * Returns status code of the last attempt, <code>0</code> means that the webhook has not responded
+     * or the notification was not sent at all.
+     */
+    @Exported
+    public int getLastStatusCode() {
+        return attempts.isEmpty() ? 0 : attempts.get(attempts.size() - 1).getStatusCode();
+    }
+
+    /**
+     * Returns failed attempts from the oldest to the newest one.
+     */
+    @Exported(inline = true)
+    public List<DeliveryFailure> getAttempts() {
+        return Collections.unmodifiableList(attempts);
+    }
+}
@@ -0,0 +1,71 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jenkins.plugins.office365connector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import hudson.Extension;
+import hudson.cli.CLICommand;
+import jenkins.model.Jenkins;
+import org.kohsuke.args4j.Argument;
+
+/**
+ * Lists, sends again or removes notifications kept in {@link DeadLetterStore}, e.g.
+ * <code>java -jar jenkins-cli.jar office365connector-dead-letters replay 3 4</code>.
+ */
+@Extension
+public class DeadLetterCommand extends CLICommand {
+
+    @Argument(index = 0, metaVar = "ACTION", required = true, usage = "list, replay or purge")
+    public Action action;
+
+    @Argument(index = 1, metaVar = "IDS", usage = "Identifiers of the notifications, all notifications when omitted")
+    public List<Long> ids = new ArrayList<>();
+
+    @Override
+    public String getName() {
+        return "office365connector-dead-letters";
+    }
+
+    @Override
+    public String getShortDescription() {
+        return Messages.DeadLetterCommand_ShortDescription();
+    }
+
+    @Override
+    protected int run() {
+        Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+        DeadLetterStore store = DeadLetterStore.get();
+        switch (action) {
+            case LIST:
+                for (DeadLetter letter : store.getLetters()) {
+                    stdout.printf("%d\t%tFT%<tT\t%s\t%d attempts\tstatus %d%n", letter.getId(), letter.getTime(),
+                            letter.getHost(), letter.getAttempts().size(), letter.getLastStatusCode());
+                }
+                break;
+            case REPLAY:
+                stdout.printf("%d notifications will be sent again%n", store.replay(ids));
+                break;
+            case PURGE:
+                stdout.printf("%d notifications were removed%n", store.purge(ids));
+                break;
+        }
+        return 0;
+    }
+
+    public enum Action {
+        LIST, REPLAY, PURGE
+    }
+}
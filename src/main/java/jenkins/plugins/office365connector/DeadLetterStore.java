@@ -0,0 +1,225 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jenkins.plugins.office365connector;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import hudson.XmlFile;
+import hudson.util.LogTaskListener;
+import jenkins.model.Jenkins;
+import jenkins.util.SystemProperties;
+
+/**
+ * Keeps notifications that were not delivered after all attempts, so they can be sent again when the webhook
+ * works again instead of running the builds again. Every notification is stored in its own file
+ * in <code>$JENKINS_HOME/office365connector/dead-letters</code>, the oldest ones are removed when the store is full.
+ * Notifications are replayed through {@link DeliveryQueue}, so they respect the rate limit like any other one.
+ * <ul>
+ *     <li><code>jenkins.plugins.office365connector.DeadLetterStore.capacity</code> (default 100, 0 disables the store)</li>
+ * </ul>
+ */
+public class DeadLetterStore {
+
+    private static final Logger LOGGER = Logger.getLogger(DeadLetterStore.class.getName());
+
+    static final int CAPACITY = SystemProperties.getInteger(DeadLetterStore.class.getName() + ".capacity", 100);
+
+    private static final String FILE_SUFFIX = ".xml";
+
+    private static DeadLetterStore instance;
+
+    /**
+     * <code>null</code> when Jenkins is not running, for instance in tests, then nothing is written.
+     */
+    private final File directory;
+    private final int capacity;
+
+    private final Map<Long, DeadLetter> letters = new LinkedHashMap<>();
+    private long nextId = 1;
+
+    DeadLetterStore(File directory, int capacity) {
+        this.directory = directory;
+        this.capacity = capacity;
+        if (directory != null) {
+            load();
+        }
+    }
+
+    /**
+     * Returns the store kept in Jenkins home directory.
+     *
+     * @return dead letter store
+     */
+    public static synchronized DeadLetterStore get() {
+        if (instance == null) {
+            Jenkins jenkins = Jenkins.getInstanceOrNull();
+            File directory = jenkins != null ? new File(jenkins.getRootDir(), "office365connector/dead-letters") : null;
+            instance = new DeadLetterStore(directory, CAPACITY);
+        }
+        return instance;
+    }
+
+    private void load() {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(FILE_SUFFIX));
+        if (files == null) {
+            return;
+        }
+        List<DeadLetter> loaded = new ArrayList<>();
+        for (File file : files) {
+            try {
+                loaded.add((DeadLetter) new XmlFile(file).read());
+            } catch (IOException | ClassCastException e) {
+                LOGGER.log(Level.WARNING, "Failed to read undelivered notification " + file, e);
+            }
+        }
+        loaded.sort(Comparator.comparingLong(DeadLetter::getId));
+        for (DeadLetter letter : loaded) {
+            letters.put(letter.getId(), letter);
+            nextId = Math.max(nextId, letter.getId() + 1);
+        }
+    }
+
+    /**
+     * Stores the notification that was given up.
+     *
+     * @param worker   worker that has failed to deliver the notification
+     * @param attempts failed attempts of the worker
+     */
+    public void add(HttpWorker worker, List<DeliveryFailure> attempts) {
+        if (capacity <= 0) {
+            return;
+        }
+        RetryPolicy retryPolicy = worker.getRetryPolicy();
+        long maxDelay = retryPolicy instanceof ExponentialBackoffRetryPolicy
+                ? ((ExponentialBackoffRetryPolicy) retryPolicy).getMaxDelay()
+                : ExponentialBackoffRetryPolicy.DEFAULT_MAX_DELAY;
+        DeadLetter letter = new DeadLetter(0, System.currentTimeMillis(), worker.getUrl(),
+                new String(worker.getData(), StandardCharsets.UTF_8), worker.getTimeout(),
+                retryPolicy.getMaxAttempts(), maxDelay, attempts);
+        add(letter);
+    }
+
+    synchronized DeadLetter add(DeadLetter letter) {
+        DeadLetter stored = letter.withId(nextId++);
+        letters.put(stored.getId(), stored);
+        write(stored);
+        Iterator<DeadLetter> oldest = letters.values().iterator();
+        while (letters.size() > capacity) {
+            DeadLetter evicted = oldest.next();
+            oldest.remove();
+            delete(evicted);
+            LOGGER.log(Level.WARNING, "Too many undelivered notifications, notification to {0} was removed", evicted.getHost());
+        }
+        return stored;
+    }
+
+    /**
+     * Returns stored notifications from the oldest to the newest one.
+     *
+     * @return undelivered notifications
+     */
+    public synchronized List<DeadLetter> getLetters() {
+        return new ArrayList<>(letters.values());
+    }
+
+    /**
+     * Sends stored notifications again and removes them from the store. Notifications that fail again
+     * are stored again when the new attempts are exhausted.
+     *
+     * @param ids identifiers of the notifications, all notifications are sent when empty
+     * @return number of notifications passed for the delivery
+     */
+    public int replay(Collection<Long> ids) {
+        int replayed = 0;
+        // there is no build log anymore
+        LogTaskListener listener = new LogTaskListener(Logger.getLogger(HttpWorker.class.getName()), Level.INFO);
+        for (DeadLetter letter : remove(ids)) {
+            HttpWorker worker = new HttpWorker(letter.getUrl(), letter.getPayload().getBytes(StandardCharsets.UTF_8),
+                    letter.getTimeout(), new ExponentialBackoffRetryPolicy(letter.getMaxAttempts(), letter.getMaxDelay()),
+                    listener.getLogger());
+            try {
+                DeliveryQueue.get().enqueue(worker);
+                replayed++;
+            } catch (RejectedExecutionException e) {
+                LOGGER.log(Level.WARNING, "Delivery queue is full, notification to {0} is kept", letter.getHost());
+                add(letter);
+            }
+        }
+        return replayed;
+    }
+
+    /**
+     * Removes stored notifications without sending them.
+     *
+     * @param ids identifiers of the notifications, all notifications are removed when empty
+     * @return number of removed notifications
+     */
+    public int purge(Collection<Long> ids) {
+        return remove(ids).size();
+    }
+
+    private synchronized List<DeadLetter> remove(Collection<Long> ids) {
+        List<DeadLetter> removed = new ArrayList<>();
+        Iterator<DeadLetter> iterator = letters.values().iterator();
+        while (iterator.hasNext()) {
+            DeadLetter letter = iterator.next();
+            if (ids.isEmpty() || ids.contains(letter.getId())) {
+                iterator.remove();
+                delete(letter);
+                removed.add(letter);
+            }
+        }
+        return removed;
+    }
+
+    private void write(DeadLetter letter) {
+        if (directory == null) {
+            return;
+        }
+        try {
+            getFile(letter).write(letter);
+        } catch (IOException e) {
+            // notification is still kept, it only does not survive the restart
+            LOGGER.log(Level.WARNING, "Failed to store undelivered notification", e);
+        }
+    }
+
+    private void delete(DeadLetter letter) {
+        if (directory == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(getFile(letter).getFile().toPath());
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to delete undelivered notification " + letter.getId(), e);
+        }
+    }
+
+    private XmlFile getFile(DeadLetter letter) {
+        return new XmlFile(new File(directory, letter.getId() + FILE_SUFFIX));
+    }
+}
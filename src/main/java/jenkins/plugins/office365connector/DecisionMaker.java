@@ -13,16 +13,10 @@
  */
 package jenkins.plugins.office365connector;
 
-import java.io.File;
-import java.io.IOException;
-
-import hudson.FilePath;
 import hudson.model.Result;
 import hudson.model.Run;
 import hudson.model.TaskListener;
 import jenkins.plugins.office365connector.model.Macro;
-import org.jenkinsci.plugins.tokenmacro.MacroEvaluationException;
-import org.jenkinsci.plugins.tokenmacro.TokenMacro;
 
 /**
  * Provides methods that help to decide if the notification should be sent or skipped.
@@ -35,13 +29,25 @@ public class DecisionMaker {
     private final TaskListener taskListener;
 
     private final Result previousResult;
+    private final BuildHistoryIndex.Streak previousStreak;
+    private final MacroEvaluator macroEvaluator;
 
     public DecisionMaker(Run run, TaskListener listener) {
+        this(run, listener, new MacroEvaluator(run, listener));
+    }
+
+    public DecisionMaker(Run run, TaskListener listener, MacroEvaluator macroEvaluator) {
         this.run = run;
         this.taskListener = listener;
+        this.macroEvaluator = macroEvaluator;
 
-        Run previousBuild = run.getPreviousBuild();
-        previousResult = previousBuild != null ? previousBuild.getResult() : Result.SUCCESS;
+        previousStreak = BuildHistoryIndex.get().getPrevious(run);
+        if (previousStreak != null) {
+            previousResult = previousStreak.getResult();
+        } else {
+            Run previousBuild = run.getPreviousBuild();
+            previousResult = previousBuild != null ? previousBuild.getResult() : Result.SUCCESS;
+        }
     }
 
     /**
@@ -117,13 +123,14 @@ public class DecisionMaker {
             return false;
         }
 
-        Run previousBuild = findLastCompletedBuild();
-        if (previousBuild == null) {
-            return false;
+        Result previousResult;
+        if (previousStreak != null) {
+            previousResult = previousStreak.getLastNotAbortedResult();
         } else {
-            Result previousResult = previousBuild.getResult();
-            return (previousResult == Result.FAILURE || previousResult == Result.UNSTABLE);
+            Run previousBuild = findLastCompletedBuild();
+            previousResult = previousBuild != null ? previousBuild.getResult() : null;
         }
+        return (previousResult == Result.FAILURE || previousResult == Result.UNSTABLE);
     }
 
     private Run findLastCompletedBuild() {
@@ -145,12 +152,7 @@ public class DecisionMaker {
     }
 
     private String evaluateMacro(String template) {
-        try {
-            File workspace = run.getRootDir();
-            return TokenMacro.expandAll(run, new FilePath(workspace), taskListener, template);
-        } catch (InterruptedException | IOException | MacroEvaluationException e) {
-            throw new IllegalArgumentException(e);
-        }
+        return macroEvaluator.evaluate(template);
     }
 
     /**
@@ -0,0 +1,289 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jenkins.plugins.office365connector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import hudson.Extension;
+import hudson.model.Api;
+import hudson.model.ManagementLink;
+import hudson.util.HttpResponses;
+import jenkins.model.Jenkins;
+import org.apache.commons.lang.StringUtils;
+import org.kohsuke.stapler.HttpResponse;
+import org.kohsuke.stapler.QueryParameter;
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
+import org.kohsuke.stapler.interceptor.RequirePOST;
+
+/**
+ * Shows how the notifications are delivered, so a slow or broken webhook can be found without reading the build logs.
+ * The same data is available for the scripts at <code>/manage/office365connector/api/json</code>.
+ * Undelivered notifications can be sent again with <code>POST /manage/office365connector/replay</code>
+ * or removed with <code>POST /manage/office365connector/purge</code>, both accept comma separated <code>ids</code>
+ * and handle all notifications when they are omitted.
+ */
+@Extension
+@ExportedBean
+public class DeliveryDashboard extends ManagementLink {
+
+    @Override
+    public String getIconFileName() {
+        return "symbol-analytics";
+    }
+
+    @Override
+    public String getDisplayName() {
+        return Messages.DeliveryDashboard_DisplayName();
+    }
+
+    @Override
+    public String getDescription() {
+        return Messages.DeliveryDashboard_Description();
+    }
+
+    @Override
+    public String getUrlName() {
+        return "office365connector";
+    }
+
+    @Override
+    public Category getCategory() {
+        return Category.STATUS;
+    }
+
+    public Api getApi() {
+        Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+        return new Api(this);
+    }
+
+    /**
+     * Returns number of notifications that are being delivered right now.
+     */
+    @Exported
+    public int getInFlight() {
+        return DeliveryQueue.get().getActiveCount();
+    }
+
+    /**
+     * Returns number of notifications that wait for the delivery.
+     */
+    @Exported
+    public int getQueued() {
+        return DeliveryQueue.get().getQueueSize();
+    }
+
+    @Exported
+    public long getDelivered() {
+        return DeliveryMetrics.get().getCount(DeliveryMetrics.Outcome.SUCCESS);
+    }
+
+    @Exported
+    public long getFailed() {
+        return DeliveryMetrics.get().getCount(DeliveryMetrics.Outcome.FAILURE);
+    }
+
+    @Exported
+    public long getRetried() {
+        return DeliveryMetrics.get().getCount(DeliveryMetrics.Outcome.RETRY);
+    }
+
+    @Exported
+    public long getDropped() {
+        return DeliveryMetrics.get().getCount(DeliveryMetrics.Outcome.DROP);
+    }
+
+    @Exported
+    public long getShortCircuited() {
+        return DeliveryMetrics.get().getCount(DeliveryMetrics.Outcome.SHORT_CIRCUIT);
+    }
+
+    @Exported
+    public int getOpenCircuits() {
+        return CircuitBreaker.get().getOpenCount();
+    }
+
+    /**
+     * Returns values of every {@link Counter} by its lower case name, e.g. <code>skipped_url_expansions</code>.
+     */
+    @Exported
+    public Map<String, Long> getCounters() {
+        Map<String, Long> counters = new LinkedHashMap<>();
+        for (Counter counter : Counter.values()) {
+            counters.put(counter.name().toLowerCase(Locale.ENGLISH), counter.get());
+        }
+        return counters;
+    }
+
+    @Exported(inline = true)
+    public List<HostStatistics> getHosts() {
+        List<HostStatistics> hosts = new ArrayList<>();
+        for (Map.Entry<String, RingBuffer<Long>> entry : DeliveryMetrics.get().getLatencies().entrySet()) {
+            hosts.add(new HostStatistics(entry.getKey(), entry.getValue().getNewestFirst()));
+        }
+        hosts.sort(Comparator.comparing(HostStatistics::getHost));
+        return hosts;
+    }
+
+    @Exported(inline = true)
+    public List<DeliveryFailure> getRecentFailures() {
+        return DeliveryMetrics.get().getRecentFailures();
+    }
+
+    @Exported(inline = true)
+    public List<DeadLetter> getDeadLetters() {
+        return DeadLetterStore.get().getLetters();
+    }
+
+    @RequirePOST
+    public HttpResponse doReplay(@QueryParameter String ids) {
+        Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+        DeadLetterStore.get().replay(parseIds(ids));
+        return HttpResponses.redirectToDot();
+    }
+
+    @RequirePOST
+    public HttpResponse doPurge(@QueryParameter String ids) {
+        Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+        DeadLetterStore.get().purge(parseIds(ids));
+        return HttpResponses.redirectToDot();
+    }
+
+    /**
+     * Parses comma separated identifiers of the undelivered notifications.
+     */
+    static List<Long> parseIds(String ids) {
+        if (StringUtils.isBlank(ids)) {
+            return Collections.emptyList();
+        }
+        List<Long> parsed = new ArrayList<>();
+        for (String id : StringUtils.split(ids, ',')) {
+            try {
+                parsed.add(Long.parseLong(id.trim()));
+            } catch (NumberFormatException e) {
+                throw HttpResponses.error(400, "Invalid notification identifier: " + id);
+            }
+        }
+        return parsed;
+    }
+
+    @Exported(inline = true)
+    public List<JobStatistics> getJobs() {
+        List<JobStatistics> jobs = new ArrayList<>();
+        for (Map.Entry<String, LongAdder> entry : DeliveryMetrics.get().getSentByJob().entrySet()) {
+            jobs.add(new JobStatistics(entry.getKey(), entry.getValue().sum()));
+        }
+        jobs.sort(Comparator.comparing(JobStatistics::getName));
+        return jobs;
+    }
+
+    /**
+     * Returns value below which falls given percent of the sorted values, using nearest-rank method.
+     */
+    static long percentile(long[] sortedValues, int percent) {
+        if (sortedValues.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percent / 100.0 * sortedValues.length);
+        return sortedValues[Math.max(rank, 1) - 1];
+    }
+
+    /**
+     * Response times of single webhook host, computed from the latest requests.
+     */
+    @ExportedBean(defaultVisibility = 2)
+    public static class HostStatistics {
+
+        private final String host;
+        private final int requests;
+        private final long p50;
+        private final long p95;
+        private final long p99;
+
+        HostStatistics(String host, List<Long> latencies) {
+            this.host = host;
+            long[] sorted = latencies.stream().mapToLong(Long::longValue).toArray();
+            Arrays.sort(sorted);
+            requests = sorted.length;
+            p50 = TimeUnit.NANOSECONDS.toMillis(percentile(sorted, 50));
+            p95 = TimeUnit.NANOSECONDS.toMillis(percentile(sorted, 95));
+            p99 = TimeUnit.NANOSECONDS.toMillis(percentile(sorted, 99));
+        }
+
+        @Exported
+        public String getHost() {
+            return host;
+        }
+
+        /**
+         * Returns number of requests from which the percentiles were computed.
+         */
+        @Exported
+        public int getRequests() {
+            return requests;
+        }
+
+        /**
+         * Returns median of response times in milliseconds.
+         */
+        @Exported
+        public long getP50() {
+            return p50;
+        }
+
+        @Exported
+        public long getP95() {
+            return p95;
+        }
+
+        @Exported
+        public long getP99() {
+            return p99;
+        }
+    }
+
+    /**
+     * Number of notifications sent by single job.
+     */
+    @ExportedBean(defaultVisibility = 2)
+    public static class JobStatistics {
+
+        private final String name;
+        private final long sent;
+
+        JobStatistics(String name, long sent) {
+            this.name = name;
+            this.sent = sent;
+        }
+
+        @Exported
+        public String getName() {
+            return name;
+        }
+
+        @Exported
+        public long getSent() {
+            return sent;
+        }
+    }
+}
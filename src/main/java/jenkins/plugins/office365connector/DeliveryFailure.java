@@ -0,0 +1,68 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jenkins.plugins.office365connector;
+
+import java.util.Date;
+
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
+
+/**
+ * Attempt to deliver the notification that has failed, kept by {@link DeliveryMetrics}.
+ */
+@ExportedBean(defaultVisibility = 2)
+public class DeliveryFailure {
+
+    private final long timestamp;
+    private final String host;
+    private final int statusCode;
+    private final String response;
+
+    public DeliveryFailure(long timestamp, String host, int statusCode, String response) {
+        this.timestamp = timestamp;
+        this.host = host;
+        this.statusCode = statusCode;
+        this.response = response;
+    }
+
+    @Exported
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public Date getTime() {
+        return new Date(timestamp);
+    }
+
+    @Exported
+    public String getHost() {
+        return host;
+    }
+
+    /**
+     * Returns status code of the response, <code>0</code> means that the webhook has not responded.
+     */
+    @Exported
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * Returns the beginning of the response or the error when the webhook has not responded.
+     */
+    @Exported
+    public String getResponse() {
+        return response;
+    }
+}
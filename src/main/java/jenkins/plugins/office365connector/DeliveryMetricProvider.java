@@ -0,0 +1,119 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jenkins.plugins.office365connector;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.MetricSet;
+import com.codahale.metrics.Timer;
+import hudson.Extension;
+import jenkins.metrics.api.MetricProvider;
+import jenkins.metrics.api.Metrics;
+
+/**
+ * Publishes {@link DeliveryMetrics} with the metrics plugin. The extension is optional, so it is not loaded
+ * when the metrics plugin is not installed and the statistics are then only counted.
+ * Every metric is also broken down by the host of the webhook, e.g.
+ * <code>office365connector.http.roundtrip.outlook.office.com</code>.
+ * Every {@link Counter} is published as gauge, e.g. <code>office365connector.counter.macro_cache_hits</code>.
+ */
+@Extension(optional = true)
+public class DeliveryMetricProvider extends MetricProvider implements DeliveryMetrics.Recorder {
+
+    static final String PREFIX = "office365connector";
+
+    private final MetricRegistry metrics = new MetricRegistry();
+    private final MetricRegistry hostMetrics;
+
+    private final Timer cardBuild = metrics.timer(MetricRegistry.name(PREFIX, "card", "build"));
+    private final Timer roundTrip = metrics.timer(MetricRegistry.name(PREFIX, "http", "roundtrip"));
+    private final Histogram payloadSize = metrics.histogram(MetricRegistry.name(PREFIX, "http", "payload"));
+    private final Meter[] outcomes = new Meter[DeliveryMetrics.Outcome.values().length];
+
+    public DeliveryMetricProvider() {
+        this(null);
+    }
+
+    /**
+     * @param hostMetrics registry for metrics of the webhook hosts, which are not known upfront
+     *                    so they cannot be part of the {@link #getMetricSet() metric set};
+     *                    <code>null</code> stands for the registry of the metrics plugin
+     */
+    DeliveryMetricProvider(MetricRegistry hostMetrics) {
+        this.hostMetrics = hostMetrics;
+        for (DeliveryMetrics.Outcome outcome : DeliveryMetrics.Outcome.values()) {
+            outcomes[outcome.ordinal()] = metrics.meter(getOutcomeName(outcome));
+        }
+        metrics.register(MetricRegistry.name(PREFIX, "queue", "depth"),
+                (Gauge<Integer>) () -> DeliveryQueue.get().getQueueSize());
+        metrics.register(MetricRegistry.name(PREFIX, "circuit", "open"),
+                (Gauge<Integer>) () -> CircuitBreaker.get().getOpenCount());
+        for (Counter counter : Counter.values()) {
+            metrics.register(getCounterName(counter), (Gauge<Long>) counter::get);
+        }
+    }
+
+    /**
+     * Returns metrics known upfront and starts publishing them. It is called by the metrics plugin when it starts.
+     */
+    @Override
+    public MetricSet getMetricSet() {
+        DeliveryMetrics.get().setRecorder(this);
+        return metrics;
+    }
+
+    @Override
+    public void cardBuilt(long durationNanos) {
+        cardBuild.update(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void requestCompleted(String host, long payloadSize, long durationNanos) {
+        roundTrip.update(durationNanos, TimeUnit.NANOSECONDS);
+        this.payloadSize.update(payloadSize);
+
+        MetricRegistry registry = getHostMetrics();
+        if (registry != null) {
+            registry.timer(MetricRegistry.name(PREFIX, "http", "roundtrip", host)).update(durationNanos, TimeUnit.NANOSECONDS);
+            registry.histogram(MetricRegistry.name(PREFIX, "http", "payload", host)).update(payloadSize);
+        }
+    }
+
+    @Override
+    public void outcome(String host, DeliveryMetrics.Outcome outcome) {
+        outcomes[outcome.ordinal()].mark();
+
+        MetricRegistry registry = getHostMetrics();
+        if (registry != null) {
+            registry.meter(MetricRegistry.name(getOutcomeName(outcome), host)).mark();
+        }
+    }
+
+    private MetricRegistry getHostMetrics() {
+        return hostMetrics != null ? hostMetrics : Metrics.metricRegistry();
+    }
+
+    static String getCounterName(Counter counter) {
+        return MetricRegistry.name(PREFIX, "counter", counter.name().toLowerCase(Locale.ENGLISH));
+    }
+
+    private static String getOutcomeName(DeliveryMetrics.Outcome outcome) {
+        return MetricRegistry.name(PREFIX, "delivery", outcome.name().toLowerCase(Locale.ENGLISH));
+    }
+}
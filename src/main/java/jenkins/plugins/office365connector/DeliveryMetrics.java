@@ -0,0 +1,229 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jenkins.plugins.office365connector;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import jenkins.util.SystemProperties;
+
+/**
+ * Collects statistics of the delivered notifications. Outcomes, notifications sent by the jobs, latest response times
+ * of every host and latest failures are always kept for the {@link DeliveryDashboard}. Timings and sizes
+ * are passed further only when the {@link Recorder} is installed, which happens when the metrics plugin is present.
+ * Counters are backed by {@link LongAdder} and the history by {@link RingBuffer} so the threads that deliver
+ * notifications do not contend.
+ * <ul>
+ *     <li><code>jenkins.plugins.office365connector.DeliveryMetrics.failureHistory</code> (default 50)</li>
+ *     <li><code>jenkins.plugins.office365connector.DeliveryMetrics.latencyHistory</code> (default 1000)</li>
+ * </ul>
+ */
+public final class DeliveryMetrics {
+
+    static final String UNKNOWN_HOST = "unknown";
+
+    static final int FAILURE_HISTORY = SystemProperties.getInteger(DeliveryMetrics.class.getName() + ".failureHistory", 50);
+    static final int LATENCY_HISTORY = SystemProperties.getInteger(DeliveryMetrics.class.getName() + ".latencyHistory", 1000);
+
+    /**
+     * Part of the response that is kept for the failed delivery.
+     */
+    static final int MAX_RESPONSE_LENGTH = 1000;
+
+    private static final DeliveryMetrics INSTANCE = new DeliveryMetrics();
+
+    private final LongAdder[] outcomes = new LongAdder[Outcome.values().length];
+    private final Map<String, LongAdder> sentByJob = new ConcurrentHashMap<>();
+    private final Map<String, RingBuffer<Long>> latencies = new ConcurrentHashMap<>();
+    private final RingBuffer<DeliveryFailure> failures = new RingBuffer<>(FAILURE_HISTORY);
+
+    private volatile Recorder recorder;
+
+    DeliveryMetrics() {
+        for (int i = 0; i < outcomes.length; i++) {
+            outcomes[i] = new LongAdder();
+        }
+    }
+
+    public static DeliveryMetrics get() {
+        return INSTANCE;
+    }
+
+    void setRecorder(Recorder recorder) {
+        this.recorder = recorder;
+    }
+
+    /**
+     * Records time spent on turning the card into the request and passing it for the delivery.
+     *
+     * @param durationNanos duration in nanoseconds
+     */
+    public void cardBuilt(long durationNanos) {
+        Recorder current = recorder;
+        if (current != null) {
+            current.cardBuilt(durationNanos);
+        }
+    }
+
+    /**
+     * Records single request for which the webhook has responded.
+     *
+     * @param url           webhook URL
+     * @param payloadSize   size of the sent payload in bytes
+     * @param durationNanos round-trip time in nanoseconds
+     */
+    public void requestCompleted(String url, long payloadSize, long durationNanos) {
+        String host = getHost(url);
+        latencies.computeIfAbsent(host, key -> new RingBuffer<>(LATENCY_HISTORY)).add(durationNanos);
+        Recorder current = recorder;
+        if (current != null) {
+            current.requestCompleted(host, payloadSize, durationNanos);
+        }
+    }
+
+    /**
+     * Records attempt that has failed.
+     *
+     * @param url        webhook URL
+     * @param statusCode status code of the response or <code>0</code> when there was no response
+     * @param response   response of the webhook or the error
+     * @return recorded failure
+     */
+    public DeliveryFailure recordFailure(String url, int statusCode, String response) {
+        String message = response != null && response.length() > MAX_RESPONSE_LENGTH
+                ? response.substring(0, MAX_RESPONSE_LENGTH) : response;
+        DeliveryFailure failure = new DeliveryFailure(System.currentTimeMillis(), getHost(url), statusCode, message);
+        failures.add(failure);
+        return failure;
+    }
+
+    /**
+     * Records notification sent by the job.
+     *
+     * @param jobName full name of the job
+     */
+    public void notificationSent(String jobName) {
+        if (jobName != null) {
+            sentByJob.computeIfAbsent(jobName, key -> new LongAdder()).increment();
+        }
+    }
+
+    /**
+     * Records what happened with the notification.
+     *
+     * @param url     webhook URL
+     * @param outcome outcome of the delivery attempt
+     */
+    public void record(String url, Outcome outcome) {
+        outcomes[outcome.ordinal()].increment();
+        Recorder current = recorder;
+        if (current != null) {
+            current.outcome(getHost(url), outcome);
+        }
+    }
+
+    /**
+     * Returns how many times given outcome has been recorded since Jenkins started.
+     *
+     * @param outcome outcome of the delivery attempt
+     * @return number of recorded outcomes
+     */
+    public long getCount(Outcome outcome) {
+        return outcomes[outcome.ordinal()].sum();
+    }
+
+    /**
+     * Returns number of notifications sent by every job since Jenkins started.
+     *
+     * @return full names of the jobs with the number of sent notifications
+     */
+    public Map<String, LongAdder> getSentByJob() {
+        return sentByJob;
+    }
+
+    /**
+     * Returns latest response times (in nanoseconds) of every webhook host.
+     *
+     * @return hosts with their response times
+     */
+    Map<String, RingBuffer<Long>> getLatencies() {
+        return latencies;
+    }
+
+    /**
+     * Returns latest failures from the newest to the oldest one.
+     *
+     * @return failed attempts
+     */
+    public List<DeliveryFailure> getRecentFailures() {
+        return failures.getNewestFirst();
+    }
+
+    /**
+     * Returns host of the webhook, so the statistics are not split by the secrets that webhook URLs contain.
+     */
+    static String getHost(String url) {
+        if (url == null) {
+            return UNKNOWN_HOST;
+        }
+        try {
+            String host = new URI(url).getHost();
+            return host != null ? host : UNKNOWN_HOST;
+        } catch (URISyntaxException e) {
+            return UNKNOWN_HOST;
+        }
+    }
+
+    /**
+     * Outcome of the delivery attempt.
+     */
+    public enum Outcome {
+        /**
+         * Webhook has accepted the notification.
+         */
+        SUCCESS,
+        /**
+         * Webhook has rejected the notification or all attempts failed.
+         */
+        FAILURE,
+        /**
+         * Attempt failed and the request will be repeated.
+         */
+        RETRY,
+        /**
+         * Notification was not sent because the delivery queue was full.
+         */
+        DROP,
+        /**
+         * Notification was not sent because the webhook keeps failing, see {@link CircuitBreaker}.
+         */
+        SHORT_CIRCUIT
+    }
+
+    /**
+     * Publishes the statistics, e.g. with the metrics plugin.
+     */
+    interface Recorder {
+
+        void cardBuilt(long durationNanos);
+
+        void requestCompleted(String host, long payloadSize, long durationNanos);
+
+        void outcome(String host, Outcome outcome);
+    }
+}
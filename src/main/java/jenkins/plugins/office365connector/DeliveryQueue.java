@@ -0,0 +1,240 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jenkins.plugins.office365connector;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import hudson.init.Terminator;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import jenkins.util.SystemProperties;
+
+/**
+ * Delivers notifications to the webhooks using single, bounded pool of threads shared by the whole plugin.
+ * When Jenkins runs on Java 21 or newer the pool starts virtual threads, so many slow webhooks can be waited for
+ * at the same time without exhausting platform threads, otherwise it falls back to small pool of platform threads.
+ * Size of the pool, capacity of the queue and behaviour when the queue is full can be tuned with system properties:
+ * <ul>
+ *     <li><code>jenkins.plugins.office365connector.DeliveryQueue.threads</code> (default 4)</li>
+ *     <li><code>jenkins.plugins.office365connector.DeliveryQueue.virtualThreads</code> (default true)</li>
+ *     <li><code>jenkins.plugins.office365connector.DeliveryQueue.maxVirtualThreads</code> (default same as
+ *     <code>SharedHttpClient.maxConnections</code>)</li>
+ *     <li><code>jenkins.plugins.office365connector.DeliveryQueue.capacity</code> (default 1000)</li>
+ *     <li><code>jenkins.plugins.office365connector.DeliveryQueue.rejectionPolicy</code> (default ABORT)</li>
+ * </ul>
+ */
+public final class DeliveryQueue {
+
+    private static final Logger LOGGER = Logger.getLogger(DeliveryQueue.class.getName());
+
+    static final int THREADS = SystemProperties.getInteger(DeliveryQueue.class.getName() + ".threads", 4);
+    static final int CAPACITY = SystemProperties.getInteger(DeliveryQueue.class.getName() + ".capacity", 1000);
+    static final boolean VIRTUAL_THREADS = SystemProperties.getBoolean(DeliveryQueue.class.getName() + ".virtualThreads", true);
+    // more threads would only wait for the connections of the shared client
+    static final int MAX_VIRTUAL_THREADS = SystemProperties.getInteger(DeliveryQueue.class.getName() + ".maxVirtualThreads",
+            SharedHttpClient.MAX_CONNECTIONS);
+
+    private static final String THREAD_NAME = "Office365Connector delivery";
+
+    /**
+     * Milestone reached during shutdown when the queue has been drained, services used by the delivery
+     * such as the {@link Outbox} are closed only after it.
+     */
+    static final String DRAINED = "jenkins.plugins.office365connector.DeliveryQueue.drained";
+    static final RejectionPolicy REJECTION_POLICY = RejectionPolicy.fromString(
+            SystemProperties.getString(DeliveryQueue.class.getName() + ".rejectionPolicy"));
+
+    private static DeliveryQueue instance;
+
+    private final ThreadPoolExecutor executor;
+
+    DeliveryQueue(int threads, int capacity, RejectionPolicy rejectionPolicy) {
+        this(threads, capacity, rejectionPolicy, new NamingThreadFactory(new DaemonThreadFactory(), THREAD_NAME));
+    }
+
+    DeliveryQueue(int threads, int capacity, RejectionPolicy rejectionPolicy, ThreadFactory threadFactory) {
+        executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(capacity),
+                threadFactory,
+                rejectionPolicy.handler);
+        // threads are not needed when there is nothing to deliver
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Returns the queue shared by all notifications, it is created when requested for the first time.
+     *
+     * @return delivery queue
+     */
+    public static synchronized DeliveryQueue get() {
+        if (instance == null) {
+            ThreadFactory virtualThreadFactory = VIRTUAL_THREADS ? createVirtualThreadFactory() : null;
+            if (virtualThreadFactory != null) {
+                LOGGER.log(Level.FINE, "Delivering notifications with up to {0} virtual threads", MAX_VIRTUAL_THREADS);
+                instance = new DeliveryQueue(MAX_VIRTUAL_THREADS, CAPACITY, REJECTION_POLICY, virtualThreadFactory);
+            } else {
+                instance = new DeliveryQueue(THREADS, CAPACITY, REJECTION_POLICY);
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Returns factory of virtual threads or <code>null</code> when they are not supported by the JVM.
+     * Plugin is compiled for older Java so the API is looked up by reflection.
+     */
+    static ThreadFactory createVirtualThreadFactory() {
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, THREAD_NAME + " ", 0L);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Java older than 21, or 19 and 20 without preview features enabled
+            return null;
+        }
+    }
+
+    /**
+     * Schedules passed worker for delivery.
+     *
+     * @param worker worker that sends the notification
+     * @throws RejectedExecutionException when the queue is full and rejection policy does not allow to wait
+     */
+    public void submit(HttpWorker worker) {
+        executor.execute(worker);
+    }
+
+    /**
+     * Stores the worker in the {@link Outbox} so it survives the restart and schedules it for delivery.
+     *
+     * @param worker worker that sends the notification
+     * @throws RejectedExecutionException when the queue is full and rejection policy does not allow to wait
+     */
+    public void enqueue(HttpWorker worker) {
+        Outbox outbox = Outbox.get();
+        // stored before it is queued so it is not lost if Jenkins stops before the delivery
+        outbox.journal(worker);
+        try {
+            submit(worker);
+        } catch (RejectedExecutionException e) {
+            outbox.acknowledge(worker.getOutboxId());
+            DeliveryMetrics.get().record(worker.getUrl(), DeliveryMetrics.Outcome.DROP);
+            throw e;
+        }
+    }
+
+    /**
+     * Returns number of notifications that wait for the delivery.
+     *
+     * @return size of the queue
+     */
+    public int getQueueSize() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * Returns number of notifications that are being delivered right now.
+     *
+     * @return number of busy threads
+     */
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    void shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(timeout, unit)) {
+            LOGGER.log(Level.WARNING, "{0} notifications were not delivered before shutdown",
+                    executor.shutdownNow().size());
+        }
+    }
+
+    /**
+     * Gives pending notifications a chance to be delivered when Jenkins is going down.
+     */
+    @Terminator(requires = Coalescer.FLUSHED, attains = DRAINED)
+    public static synchronized void shutdown() throws InterruptedException {
+        if (instance != null) {
+            instance.shutdown(10, TimeUnit.SECONDS);
+            instance = null;
+        }
+    }
+
+    /**
+     * Defines what happens with notification when the queue is full.
+     */
+    public enum RejectionPolicy {
+
+        /**
+         * Notification is dropped and the failure is reported in the build log.
+         */
+        ABORT(new ThreadPoolExecutor.AbortPolicy()),
+
+        /**
+         * Notification is delivered by the thread that sends it, which slows down the caller.
+         */
+        CALLER_RUNS(new ThreadPoolExecutor.CallerRunsPolicy()),
+
+        /**
+         * The oldest notification that waits in the queue is dropped to make space for the new one.
+         */
+        DISCARD_OLDEST(new DiscardOldestPolicy());
+
+        private final RejectedExecutionHandler handler;
+
+        RejectionPolicy(RejectedExecutionHandler handler) {
+            this.handler = handler;
+        }
+
+        static RejectionPolicy fromString(String name) {
+            if (name != null) {
+                for (RejectionPolicy policy : values()) {
+                    if (policy.name().equalsIgnoreCase(name.trim())) {
+                        return policy;
+                    }
+                }
+                LOGGER.log(Level.WARNING, "Unknown rejection policy {0}, using {1}", new Object[]{name, ABORT});
+            }
+            return ABORT;
+        }
+    }
+
+    /**
+     * Works like {@link ThreadPoolExecutor.DiscardOldestPolicy} but gives up the dropped {@link HttpWorker},
+     * so it is counted, kept in the {@link DeadLetterStore} and removed from the {@link Outbox}.
+     */
+    static final class DiscardOldestPolicy implements RejectedExecutionHandler {
+
+        @Override
+        public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+            if (executor.isShutdown()) {
+                // task stays in the Outbox and is delivered after the restart
+                return;
+            }
+            Runnable oldest = executor.getQueue().poll();
+            if (oldest instanceof HttpWorker) {
+                ((HttpWorker) oldest).discard();
+            }
+            executor.execute(task);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jenkins.plugins.office365connector;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.apache.http.HttpStatus;
+
+/**
+ * Repeats only requests that failed because of transient problems. Delay between attempts grows
+ * exponentially and is randomized (full jitter) so many notifications that failed at the same time
+ * do not hit the webhook again at the same moment. Delay requested by the webhook is honoured up to the longest delay,
+ * so broken or hostile <code>Retry-After</code> header does not hold the notification for days.
+ */
+public class ExponentialBackoffRetryPolicy implements RetryPolicy {
+
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+    public static final int DEFAULT_MAX_DELAY = 60000;
+
+    static final long BASE_DELAY = 1000;
+
+    private final int maxAttempts;
+    private final long maxDelay;
+
+    public ExponentialBackoffRetryPolicy(int maxAttempts, long maxDelay) {
+        this.maxAttempts = maxAttempts;
+        this.maxDelay = maxDelay;
+    }
+
+    /**
+     * Creates policy for passed webhook. Values that are not set for the webhook are taken from global configuration.
+     *
+     * @param webhook webhook for which the notification is sent
+     * @return retry policy
+     */
+    public static ExponentialBackoffRetryPolicy of(Webhook webhook) {
+        Webhook.DescriptorImpl global = Webhook.getGlobalConfiguration();
+
+        int maxAttempts = webhook.getMaxAttempts();
+        if (maxAttempts <= 0) {
+            maxAttempts = global != null && global.getGlobalMaxAttempts() > 0
+                    ? global.getGlobalMaxAttempts() : DEFAULT_MAX_ATTEMPTS;
+        }
+        int maxDelay = webhook.getMaxRetryDelay();
+        if (maxDelay <= 0) {
+            maxDelay = global != null && global.getGlobalMaxRetryDelay() > 0
+                    ? global.getGlobalMaxRetryDelay() : DEFAULT_MAX_DELAY;
+        }
+        return new ExponentialBackoffRetryPolicy(maxAttempts, maxDelay);
+    }
+
+    @Override
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public long getMaxDelay() {
+        return maxDelay;
+    }
+
+    @Override
+    public boolean isRetryable(int statusCode) {
+        return statusCode == HttpStatus.SC_REQUEST_TIMEOUT
+                || statusCode == 429 // Too Many Requests
+                || statusCode >= HttpStatus.SC_INTERNAL_SERVER_ERROR;
+    }
+
+    @Override
+    public long getDelay(int attempt, long retryAfter) {
+        // avoid overflow for big number of attempts
+        long ceiling = Math.min(maxDelay, BASE_DELAY << Math.max(0, Math.min(attempt - 1, 20)));
+        long delay = ThreadLocalRandom.current().nextLong(ceiling + 1);
+        // webhook knows better when it will be ready to accept the request, but it is not trusted without limits
+        return Math.min(Math.max(delay, retryAfter), maxDelay);
+    }
+}
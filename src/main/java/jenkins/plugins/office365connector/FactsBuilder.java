@@ -13,29 +13,19 @@
  */
 package jenkins.plugins.office365connector;
 
-import java.io.File;
-import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Comparator;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
 
-import hudson.FilePath;
 import hudson.model.Cause;
 import hudson.model.Run;
 import hudson.model.TaskListener;
-import hudson.model.User;
-import hudson.scm.ChangeLogSet;
 import jenkins.plugins.office365connector.model.Fact;
 import jenkins.plugins.office365connector.model.FactDefinition;
 import jenkins.scm.RunWithSCM;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang.StringUtils;
-import org.jenkinsci.plugins.tokenmacro.MacroEvaluationException;
-import org.jenkinsci.plugins.tokenmacro.TokenMacro;
 
 /**
  * Collects helper methods that create instance of {@link jenkins.plugins.office365connector.model.Fact Fact} class.
@@ -54,11 +44,15 @@ public class FactsBuilder {
     private final List<Fact> facts = new ArrayList<>();
 
     private final Run run;
-    private final TaskListener taskListener;
+    private final MacroEvaluator macroEvaluator;
 
     public FactsBuilder(Run run, TaskListener listener) {
+        this(run, new MacroEvaluator(run, listener));
+    }
+
+    public FactsBuilder(Run run, MacroEvaluator macroEvaluator) {
         this.run = run;
-        this.taskListener = listener;
+        this.macroEvaluator = macroEvaluator;
     }
 
     public void addStatus(String status) {
@@ -83,40 +77,17 @@ public class FactsBuilder {
         if (!(run instanceof RunWithSCM)) {
             return;
         }
-        RunWithSCM runWithSCM = (RunWithSCM) run;
-        Set<User> authors = runWithSCM.getCulprits();
-
-        String joinedCommitters = authors.stream()
-                .map(User::getFullName)
-                .collect(Collectors.joining(", "));
-        addFact(COMMITTERS, joinedCommitters);
+        Set<String> culprits = CulpritAggregator.get().getCulprits(run);
+        addFact(COMMITTERS, CulpritAggregator.join(culprits, CulpritAggregator.MAX_NAMES));
     }
 
     public void addDevelopers() {
         if (!(run instanceof RunWithSCM)) {
             return;
         }
-        RunWithSCM runWithSCM = (RunWithSCM) run;
-
-        List<ChangeLogSet<ChangeLogSet.Entry>> sets = runWithSCM.getChangeSets();
-
-        Set<User> authors = new HashSet<>();
-        sets.stream()
-                .filter(set -> set instanceof ChangeLogSet)
-                .forEach(set -> set
-                        .forEach(entry -> authors.add(entry.getAuthor())));
-
-        addFact(NAME_DEVELOPERS, StringUtils.join(sortUsers(authors), ", "));
-    }
-
-    /**
-     * Users should be stored in set to eliminate duplicates and sorted so the results
-     * are presented same and deterministic way.
-     */
-    private Collection sortUsers(Set<User> authors) {
-        return authors.stream()
-                .sorted(Comparator.comparing(User::getFullName))
-                .collect(Collectors.toList());
+        // authors are sorted so the results are presented same and deterministic way
+        List<String> authors = ChangeLogSummaryAction.of(run).getAuthors();
+        addFact(NAME_DEVELOPERS, StringUtils.join(authors, ", "));
     }
 
     public void addUserFacts(List<FactDefinition> factDefinitions) {
@@ -127,21 +98,15 @@ public class FactsBuilder {
         }
     }
 
-    // ToDo: this code is redundant and should be merged with DecisionMaker#evaluateMacro
     private String evaluateMacro(String template) {
-        try {
-            File workspace = run.getRootDir();
-            return TokenMacro.expandAll(run, new FilePath(workspace), taskListener, template);
-        } catch (InterruptedException | IOException | MacroEvaluationException e) {
-            throw new IllegalArgumentException(e);
-        }
+        return macroEvaluator.evaluate(template);
     }
 
     public void addFact(String name, String value) {
         addFact(new Fact(name, value));
     }
 
-    private void addFact(Fact fact) {
+    public void addFact(Fact fact) {
         if (StringUtils.isBlank(fact.getName()) || StringUtils.isBlank(fact.getValue())) {
             return;
         }
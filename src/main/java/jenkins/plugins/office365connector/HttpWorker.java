@@ -13,135 +13,381 @@
  */
 package jenkins.plugins.office365connector;
 
-import hudson.ProxyConfiguration;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpRequest;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.regex.Pattern;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
 
-import jenkins.model.Jenkins;
-import org.apache.commons.lang.StringUtils;
-import org.apache.http.HttpHost;
+import jenkins.util.SystemProperties;
+import jenkins.util.Timer;
+import org.apache.commons.lang.math.NumberUtils;
+import org.apache.http.Header;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
-import org.apache.http.auth.AuthScope;
-import org.apache.http.auth.UsernamePasswordCredentials;
-import org.apache.http.client.CredentialsProvider;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.utils.DateUtils;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.entity.ByteArrayEntity;
 import org.apache.http.entity.ContentType;
-import org.apache.http.entity.StringEntity;
-import org.apache.http.impl.client.BasicCredentialsProvider;
 import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.util.EntityUtils;
 
 /**
- * Makes http post requests in a separate thread.
+ * Makes http post requests, it is executed by {@link DeliveryQueue}.
+ * Requests are sent with the {@link Transport} selected in global configuration.
+ * Each execution makes single attempt, failed requests are scheduled again according to {@link RetryPolicy}
+ * and requests that exceed {@link RateLimiter} are postponed, so no thread waits for the next attempt.
+ * Requests to the webhook that keeps failing are dropped by the {@link CircuitBreaker}.
+ * Notifications that are given up are kept in the {@link DeadLetterStore}, so they can be sent again.
  * curl -X POST -H "Content-Type: application/json" -d "@completed-success.json" "https://webhook.office.com/webhookb2..." -vs
  */
 public class HttpWorker implements Runnable {
 
-    private final ExecutorService executorService = Executors.newCachedThreadPool();
+    /**
+     * Compresses the payload with gzip. HTTP does not allow to find out if the server accepts compressed requests,
+     * so it is disabled by default and the payload is sent uncompressed when the webhook does not support it.
+     */
+    static final boolean GZIP = SystemProperties.getBoolean(HttpWorker.class.getName() + ".gzip");
+
+    private static final String GZIP_ENCODING = "gzip";
 
     private final PrintStream logger;
 
     private final String url;
-    private final String data;
+    private final byte[] data;
     private final int timeout;
+    private final RetryPolicy retryPolicy;
 
-    private static final int RETRIES = 3;
+    private int attempt;
+    private boolean permitted;
+    private long outboxId;
+    private boolean completed;
+    private final List<DeliveryFailure> failures = new ArrayList<>();
+
+    private boolean compressed = GZIP;
+
+    /**
+     * Payload and entity are created once and reused by all attempts.
+     */
+    private byte[] payload;
+    private ByteArrayEntity entity;
 
-    public HttpWorker(String url, String data, int timeout, PrintStream logger) {
+    public HttpWorker(String url, byte[] data, int timeout, RetryPolicy retryPolicy, PrintStream logger) {
         this.url = url;
         this.data = data;
         this.timeout = timeout;
+        this.retryPolicy = retryPolicy;
         this.logger = logger;
     }
 
-    /**
-     * Sends the notification to the hook.
-     */
-    public void submit() {
-        executorService.submit(this);
+    String getUrl() {
+        return url;
+    }
+
+    byte[] getData() {
+        return data;
+    }
+
+    int getTimeout() {
+        return timeout;
+    }
+
+    RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    long getOutboxId() {
+        return outboxId;
+    }
+
+    void setOutboxId(long outboxId) {
+        this.outboxId = outboxId;
+    }
+
+    void setCompressed(boolean compressed) {
+        this.compressed = compressed;
     }
 
     @Override
     public void run() {
-        int tried = 0;
-        boolean success = false;
-        CloseableHttpClient client = getHttpClient();
-        do {
-            tried++;
-            HttpPost post = new HttpPost(url);
-
-            // uncomment to log what message has been sent
-            // log("Posted JSON: %s", data);
-            post.setEntity(new StringEntity(data, ContentType.APPLICATION_JSON));
-
-            try (CloseableHttpResponse httpResponse = client.execute(post)) {
-                int responseCode = httpResponse.getStatusLine().getStatusCode();
-                if (responseCode != HttpStatus.SC_OK) {
-                    log("Posting data to %s may have failed. Webhook responded with status code - %s", url, responseCode);
-                    String response =
-                            EntityUtils.toString(httpResponse.getEntity(), StandardCharsets.UTF_8);
-                    log("Message from webhook - %s", response);
-
-                } else {
-                    success = true;
-                }
-            } catch (IOException e) {
-                log("Failed to post data to webhook - %s", url);
-                e.printStackTrace(logger);
+        if (!permitted) {
+            permitted = true;
+            long delay = RateLimiter.get().reserve(url);
+            if (delay > 0) {
+                log("Request to %s is postponed by %d ms to respect the rate limit", url, delay);
+                schedule(delay);
+                return;
             }
-        } while (tried < RETRIES && !success);
-
-    }
-
-    private CloseableHttpClient getHttpClient() {
-        HttpClientBuilder builder = HttpClientBuilder.create();
-        Jenkins jenkins = Jenkins.get();
-        if (jenkins != null) {
-            ProxyConfiguration proxy = jenkins.proxy;
-            if (proxy != null) {
-                List<Pattern> noHostProxyPatterns = proxy.getNoProxyHostPatterns();
-                if (!isNoProxyHost(this.url, noHostProxyPatterns)) {
-                    builder.setProxy(new HttpHost(proxy.name, proxy.port));
-                    String username = proxy.getUserName();
-                    String password = proxy.getPassword();
-                    // Consider it to be passed if username specified. Sufficient?
-                    if (StringUtils.isNotBlank(username)) {
-                        CredentialsProvider credsProvider = new BasicCredentialsProvider();
-                        credsProvider.setCredentials(
-                                new AuthScope(proxy.name, proxy.port),
-                                new UsernamePasswordCredentials(username, password));
-                        builder.setDefaultCredentialsProvider(credsProvider);
-                    }
-                }
+        }
+        // every attempt needs its own permit
+        permitted = false;
+        if (!CircuitBreaker.get().allowRequest(url)) {
+            log("Webhook %s keeps failing, notification is kept to be sent again later", url);
+            giveUp(DeliveryMetrics.Outcome.SHORT_CIRCUIT);
+            return;
+        }
+        attempt++;
+
+        // uncomment to log what message has been sent
+        // log("Posted JSON: %s", new String(data, StandardCharsets.UTF_8));
+        try {
+            if (getTransport() == Transport.ASYNC) {
+                sendAsync();
+            } else {
+                sendBlocking();
             }
+        } catch (RuntimeException e) {
+            handleUnexpectedError(e);
         }
-        RequestConfig config = RequestConfig.custom()
+    }
+
+    private static Transport getTransport() {
+        Webhook.DescriptorImpl global = Webhook.getGlobalConfiguration();
+        return global != null ? global.getTransport() : Transport.BLOCKING;
+    }
+
+    private void sendBlocking() {
+        CloseableHttpClient client = SharedHttpClient.get();
+        HttpPost post = new HttpPost(url);
+        post.setConfig(RequestConfig.custom()
                 .setConnectTimeout(timeout)
                 .setSocketTimeout(timeout)
                 .setConnectionRequestTimeout(timeout)
-                .build();
-        builder.setDefaultRequestConfig(config);
+                .build());
 
-        return builder.build();
+        if (entity == null) {
+            entity = new ByteArrayEntity(getPayload(), ContentType.APPLICATION_JSON);
+            if (compressed) {
+                entity.setContentEncoding(GZIP_ENCODING);
+            }
+        }
+        post.setEntity(entity);
+
+        long start = System.nanoTime();
+        try (CloseableHttpResponse httpResponse = execute(client, post)) {
+            int responseCode = httpResponse.getStatusLine().getStatusCode();
+            DeliveryMetrics.get().requestCompleted(url, entity.getContentLength(), System.nanoTime() - start);
+            String response = null;
+            if (responseCode != HttpStatus.SC_OK) {
+                response = EntityUtils.toString(httpResponse.getEntity(), StandardCharsets.UTF_8);
+            } else {
+                // response must be read so the connection can be reused
+                EntityUtils.consume(httpResponse.getEntity());
+            }
+            handleResponse(responseCode, response, getRetryAfter(httpResponse));
+        } catch (ConnectionPoolTimeoutException e) {
+            handlePoolTimeout(e);
+        } catch (IOException e) {
+            handleError(e);
+        }
     }
 
-    private static boolean isNoProxyHost(String host, List<Pattern> noProxyHostPatterns) {
-        if (host != null && noProxyHostPatterns != null) {
-            for (Pattern p : noProxyHostPatterns) {
-                if (p.matcher(host).matches()) {
-                    return true;
-                }
+    private static CloseableHttpResponse execute(CloseableHttpClient client, HttpPost post) throws IOException {
+        try {
+            return client.execute(post);
+        } catch (IllegalStateException e) {
+            // client was replaced after the proxy change and closed before the request got its connection
+            throw new IOException("Http client has been closed", e);
+        }
+    }
+
+    /**
+     * Sends the request without waiting for the response, which is handled by the threads of {@link SharedAsyncHttpClient}.
+     */
+    private void sendAsync() {
+        byte[] payload = getPayload();
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofMillis(timeout))
+                .header(HttpHeaders.CONTENT_TYPE, ContentType.APPLICATION_JSON.toString())
+                .POST(HttpRequest.BodyPublishers.ofByteArray(payload));
+        if (compressed) {
+            request.header(HttpHeaders.CONTENT_ENCODING, GZIP_ENCODING);
+        }
+
+        long start = System.nanoTime();
+        SharedAsyncHttpClient.sendAsync(request.build(), java.net.http.HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8),
+                timeout, (response, error) -> {
+                    // nobody waits for the result, so the failure must not be lost together with the notification
+                    try {
+                        if (error != null) {
+                            handleError(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+                        } else {
+                            DeliveryMetrics.get().requestCompleted(url, payload.length, System.nanoTime() - start);
+                            String retryAfter = response.headers().firstValue(HttpHeaders.RETRY_AFTER).orElse(null);
+                            handleResponse(response.statusCode(), response.body(), getRetryAfter(retryAfter));
+                        }
+                    } catch (RuntimeException e) {
+                        handleUnexpectedError(e);
+                    }
+                });
+    }
+
+    private void handleResponse(int responseCode, String response, long retryAfter) {
+        // webhook that responds is alive, even when it rejects the request
+        if (responseCode >= HttpStatus.SC_INTERNAL_SERVER_ERROR) {
+            CircuitBreaker.get().recordFailure(url);
+        } else {
+            CircuitBreaker.get().recordSuccess(url);
+        }
+        if (responseCode != HttpStatus.SC_OK) {
+            log("Posting data to %s may have failed. Webhook responded with status code - %s", url, responseCode);
+            log("Message from webhook - %s", response);
+            failures.add(DeliveryMetrics.get().recordFailure(url, responseCode, response));
+
+            if (responseCode == HttpStatus.SC_UNSUPPORTED_MEDIA_TYPE && compressed) {
+                log("Webhook does not accept compressed requests, sending uncompressed one");
+                compressed = false;
+                payload = null;
+                entity = null;
+                attempt--;
+                schedule(0);
+            } else if (retryPolicy.isRetryable(responseCode)) {
+                retry(retryAfter);
+            } else {
+                log("Webhook rejected the request, it will not be repeated");
+                complete(DeliveryMetrics.Outcome.FAILURE);
             }
+        } else {
+            complete(DeliveryMetrics.Outcome.SUCCESS);
+        }
+    }
+
+    /**
+     * Repeats the request when no connection of the {@link SharedHttpClient} pool became free in time,
+     * which happens when there are more delivery threads than connections to the webhook.
+     * It uses up the attempt so the request is not repeated forever, but it is not reported to the {@link CircuitBreaker}
+     * and keeps its permit of the {@link RateLimiter}, because the request has not reached the webhook.
+     */
+    private void handlePoolTimeout(ConnectionPoolTimeoutException e) {
+        log("No connection to %s became available in time", url);
+        failures.add(DeliveryMetrics.get().recordFailure(url, 0, e.toString()));
+        permitted = true;
+        retry(0);
+    }
+
+    private void handleError(Throwable e) {
+        log("Failed to post data to webhook - %s", url);
+        e.printStackTrace(logger);
+        failures.add(DeliveryMetrics.get().recordFailure(url, 0, e.toString()));
+        CircuitBreaker.get().recordFailure(url);
+        retry(0);
+    }
+
+    /**
+     * Gives up the notification that cannot be sent at all, e.g. because the URL is malformed,
+     * so it is not left in the {@link Outbox} and sent again after every restart.
+     */
+    private void handleUnexpectedError(RuntimeException e) {
+        log("Failed to post data to webhook - %s", url);
+        e.printStackTrace(logger);
+        if (!completed) {
+            failures.add(DeliveryMetrics.get().recordFailure(url, 0, e.toString()));
+            giveUp(DeliveryMetrics.Outcome.FAILURE);
+        }
+    }
+
+    private byte[] getPayload() {
+        if (payload == null) {
+            payload = compressed ? compress(data) : data;
+        }
+        return payload;
+    }
+
+    private static byte[] compress(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        } catch (IOException e) {
+            // writing to memory does not fail
+            throw new IllegalStateException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private void retry(long retryAfter) {
+        if (attempt >= retryPolicy.getMaxAttempts()) {
+            log("Giving up after %d attempts to post data to %s", attempt, url);
+            giveUp(DeliveryMetrics.Outcome.FAILURE);
+            return;
+        }
+        DeliveryMetrics.get().record(url, DeliveryMetrics.Outcome.RETRY);
+        long delay = retryPolicy.getDelay(attempt, retryAfter);
+        log("Request will be repeated in %d ms", delay);
+        schedule(delay);
+    }
+
+    private void schedule(long delay) {
+        Timer.get().schedule(this::resubmit, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void resubmit() {
+        try {
+            DeliveryQueue.get().submit(this);
+        } catch (RejectedExecutionException e) {
+            log("Failed to repeat the request to %s, delivery queue is full", url);
+            giveUp(DeliveryMetrics.Outcome.DROP);
+        }
+    }
+
+    /**
+     * Gives up the notification that was removed from the full {@link DeliveryQueue} to make space for newer one.
+     */
+    void discard() {
+        log("Delivery queue is full, notification to %s is dropped", url);
+        giveUp(DeliveryMetrics.Outcome.DROP);
+    }
+
+    /**
+     * Keeps the notification that could not be delivered, before it is removed from the {@link Outbox}.
+     */
+    private void giveUp(DeliveryMetrics.Outcome outcome) {
+        DeadLetterStore.get().add(this, failures);
+        complete(outcome);
+    }
+
+    /**
+     * Removes the notification from the {@link Outbox} when there is nothing more to do with it.
+     */
+    private void complete(DeliveryMetrics.Outcome outcome) {
+        completed = true;
+        DeliveryMetrics.get().record(url, outcome);
+        if (outboxId > 0) {
+            Outbox.get().acknowledge(outboxId);
+        }
+    }
+
+    /**
+     * Returns delay (in milliseconds) requested by the webhook with Retry-After header
+     * which is either number of seconds or the date.
+     */
+    static long getRetryAfter(HttpResponse response) {
+        Header header = response.getFirstHeader(HttpHeaders.RETRY_AFTER);
+        return header != null ? getRetryAfter(header.getValue()) : 0;
+    }
+
+    static long getRetryAfter(String header) {
+        if (header == null) {
+            return 0;
+        }
+        String value = header.trim();
+        if (NumberUtils.isDigits(value)) {
+            return TimeUnit.SECONDS.toMillis(Long.parseLong(value));
         }
-        return false;
+        Date date = DateUtils.parseDate(value);
+        return date != null ? Math.max(0, date.getTime() - System.currentTimeMillis()) : 0;
     }
 
     /**
@@ -0,0 +1,76 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jenkins.plugins.office365connector;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import hudson.FilePath;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import org.jenkinsci.plugins.tokenmacro.MacroEvaluationException;
+import org.jenkinsci.plugins.tokenmacro.TokenMacro;
+
+/**
+ * Evaluates templates with {@link TokenMacro} for single build event. The same template is usually used
+ * by many webhooks (as the macro or the fact) so each template is evaluated once and the result is reused.
+ * Values are not shared between events because the macros such as build status change while the build runs.
+ */
+public class MacroEvaluator {
+
+    private final Run run;
+    private final TaskListener taskListener;
+
+    private final Map<String, String> evaluated = new HashMap<>();
+
+    public MacroEvaluator(Run run, TaskListener taskListener) {
+        this.run = run;
+        this.taskListener = taskListener;
+    }
+
+    /**
+     * Replaces macros used by the template with their values.
+     *
+     * @param template template to evaluate
+     * @return evaluated template
+     * @throws IllegalArgumentException when the template cannot be evaluated
+     */
+    public String evaluate(String template) {
+        // there is nothing to expand
+        if (template != null && template.indexOf('$') < 0) {
+            Counter.SKIPPED_MACRO_EVALUATIONS.increment();
+            return template;
+        }
+        String value = evaluated.get(template);
+        if (value != null) {
+            Counter.MACRO_CACHE_HITS.increment();
+            return value;
+        }
+        Counter.MACRO_CACHE_MISSES.increment();
+        value = expandAll(template);
+        evaluated.put(template, value);
+        return value;
+    }
+
+    private String expandAll(String template) {
+        try {
+            File workspace = run.getRootDir();
+            return TokenMacro.expandAll(run, new FilePath(workspace), taskListener, template);
+        } catch (InterruptedException | IOException | MacroEvaluationException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+}
@@ -0,0 +1,200 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jenkins.plugins.office365connector;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import hudson.init.Terminator;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import jenkins.util.SystemProperties;
+
+/**
+ * Builds and sends notifications for the build events outside of the thread that reported the event,
+ * so the build is not blocked by evaluation of the macros, collecting the facts or serialization of the card.
+ * Only the notifier, which captures the state of the build, is created by the caller.
+ * When all threads are busy and the queue is full the notification is processed by the calling thread,
+ * which slows down the builds instead of losing the notifications.
+ * <ul>
+ *     <li><code>jenkins.plugins.office365connector.NotificationPipeline.threads</code> (default 2)</li>
+ *     <li><code>jenkins.plugins.office365connector.NotificationPipeline.capacity</code> (default 200)</li>
+ * </ul>
+ */
+public final class NotificationPipeline {
+
+    private static final Logger LOGGER = Logger.getLogger(NotificationPipeline.class.getName());
+
+    static final int THREADS = SystemProperties.getInteger(NotificationPipeline.class.getName() + ".threads", 2);
+    static final int CAPACITY = SystemProperties.getInteger(NotificationPipeline.class.getName() + ".capacity", 200);
+
+    /**
+     * Milestone reached during shutdown when pending notifications have been sent,
+     * the {@link Coalescer} is flushed only after it.
+     */
+    static final String STOPPED = "jenkins.plugins.office365connector.NotificationPipeline.stopped";
+
+    private static NotificationPipeline instance;
+
+    private final ThreadPoolExecutor executor;
+
+    NotificationPipeline(int threads, int capacity) {
+        executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(capacity),
+                new NamingThreadFactory(new DaemonThreadFactory(), "Office365Connector notification"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Returns the pipeline shared by all builds, it is created when requested for the first time.
+     *
+     * @return notification pipeline
+     */
+    public static synchronized NotificationPipeline get() {
+        if (instance == null) {
+            instance = new NotificationPipeline(THREADS, CAPACITY);
+        }
+        return instance;
+    }
+
+    /**
+     * Creates notifier for the build and schedules passed action that sends the notification.
+     *
+     * @param run      build for which the notification is sent
+     * @param listener listener of the build
+     * @param action   sends the notification
+     */
+    public void submit(Run run, TaskListener listener, Consumer<Office365ConnectorWebhookNotifier> action) {
+        Office365ConnectorWebhookNotifier notifier = new Office365ConnectorWebhookNotifier(run, new BuildLogListener(run, listener));
+        execute(run, () -> action.accept(notifier));
+    }
+
+    /**
+     * Schedules passed task that sends the notification for the build.
+     *
+     * @param run  build for which the notification is sent
+     * @param task sends the notification
+     */
+    public void execute(Run run, Runnable task) {
+        executor.execute(() -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                // nobody waits for the result so the problem would be lost
+                LOGGER.log(Level.WARNING, "Failed to send notification for " + run, e);
+            }
+        });
+    }
+
+    /**
+     * Returns number of notifications that wait to be processed.
+     *
+     * @return size of the queue
+     */
+    public int getQueueSize() {
+        return executor.getQueue().size();
+    }
+
+    void shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(timeout, unit)) {
+            LOGGER.log(Level.WARNING, "{0} notifications were not sent before shutdown",
+                    executor.shutdownNow().size());
+        }
+    }
+
+    /**
+     * Gives pending notifications a chance to be sent when Jenkins is going down.
+     */
+    @Terminator(attains = STOPPED)
+    public static synchronized void shutdown() throws InterruptedException {
+        if (instance != null) {
+            instance.shutdown(10, TimeUnit.SECONDS);
+            instance = null;
+        }
+    }
+
+    /**
+     * Writes to the build log as long as it is open, which includes notifications sent when the build completes.
+     * The log is closed when the build is finalized, so later messages are passed to the Jenkins log instead of being lost.
+     */
+    static final class BuildLogListener implements TaskListener {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient Run run;
+        private final transient TaskListener listener;
+        private final transient PrintStream logger;
+
+        BuildLogListener(Run run, TaskListener listener) {
+            this.run = run;
+            this.listener = listener;
+            this.logger = new PrintStream(new LineRouter(), true, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public PrintStream getLogger() {
+            return logger;
+        }
+
+        private void println(String line) {
+            // the build is not running anymore when completion is reported, but its log is still written
+            if (run.isLogUpdated()) {
+                listener.getLogger().println(line);
+            } else {
+                LOGGER.log(Level.INFO, "{0}: {1}", new Object[]{run, line});
+            }
+        }
+
+        /**
+         * Collects written bytes and passes them further line by line.
+         */
+        private final class LineRouter extends OutputStream {
+
+            private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+
+            @Override
+            public synchronized void write(int b) {
+                if (b == '\n') {
+                    flushLine();
+                } else if (b != '\r') {
+                    line.write(b);
+                }
+            }
+
+            @Override
+            public synchronized void flush() {
+                if (line.size() > 0) {
+                    flushLine();
+                }
+            }
+
+            private void flushLine() {
+                println(new String(line.toByteArray(), StandardCharsets.UTF_8));
+                line.reset();
+            }
+        }
+    }
+}
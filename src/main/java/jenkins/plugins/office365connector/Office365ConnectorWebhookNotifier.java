@@ -17,18 +17,21 @@ package jenkins.plugins.office365connector;
 
 import java.io.IOException;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
-import com.google.gson.FieldNamingPolicy;
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
+import hudson.EnvVars;
 import hudson.model.AbstractBuild;
 import hudson.model.Job;
 import hudson.model.Run;
 import hudson.model.TaskListener;
 import jenkins.plugins.office365connector.model.Card;
 import jenkins.plugins.office365connector.workflow.StepParameters;
+import jenkins.util.SystemProperties;
+import jenkins.util.Timer;
 import org.apache.commons.lang.StringUtils;
 
 /**
@@ -36,32 +39,60 @@ import org.apache.commons.lang.StringUtils;
  */
 public class Office365ConnectorWebhookNotifier {
 
-    private static final Gson gson = new GsonBuilder()
-            .setFieldNamingPolicy(FieldNamingPolicy.IDENTITY)
-            .setPrettyPrinting().create();
+    /**
+     * Formats sent messages so they are easier to read when debugging, this makes the payload bigger.
+     */
+    static final boolean PRETTY_PRINT = SystemProperties.getBoolean(Office365ConnectorWebhookNotifier.class.getName() + ".prettyPrint");
+
+    private static final CardWriter cardWriter = new CardWriter(PRETTY_PRINT);
+    private static final CardAssembler cardAssembler = new CardAssembler(cardWriter);
 
     private final DecisionMaker decisionMaker;
+    private final MacroEvaluator macroEvaluator;
 
     private final Run run;
     private final Job job;
     private final TaskListener taskListener;
 
+    // computing the environment is expensive so it is shared by all webhooks notified about the same event,
+    // guarded by this notifier when the start notifications are deferred
+    private EnvVars environment;
+    private final Map<String, String> expandedUrls = new HashMap<>();
+
+    // used by start notifications sent after the grace period
+    private CardBuilder deferredCardBuilder;
+
     public Office365ConnectorWebhookNotifier(Run run, TaskListener taskListener) {
         this.run = run;
         this.taskListener = taskListener;
-        this.decisionMaker = new DecisionMaker(run, taskListener);
+        // macros are evaluated once for the event and shared by the rules and the facts of all webhooks
+        this.macroEvaluator = new MacroEvaluator(run, taskListener);
+        this.decisionMaker = new DecisionMaker(run, taskListener, macroEvaluator);
         this.job = run.getParent();
     }
 
-    public void sendBuildStartedNotification(boolean isFromPreBuild) {
+    /**
+     * Sends the start notifications, those deferred by the grace period are sent later by another thread.
+     * It is synchronized with {@link #sendDeferredStartedNotification(Webhook)}, because both share
+     * the macro evaluator, the environment and the expanded URLs, which are not thread safe.
+     */
+    public synchronized void sendBuildStartedNotification(boolean isFromPreBuild) {
         boolean isBuild = run instanceof AbstractBuild;
         if (isBuild == isFromPreBuild) {
 
             List<Webhook> webhooks = extractWebhooks(job);
+            CardBuilder cardBuilder = null;
             for (Webhook webhook : webhooks) {
                 if (decisionMaker.isAtLeastOneRuleMatched(webhook)) {
                     if (webhook.isStartNotification()) {
-                        CardBuilder cardBuilder = new CardBuilder(run, taskListener);
+                        if (webhook.getStartGracePeriod() > 0) {
+                            deferStartedNotification(webhook);
+                            continue;
+                        }
+                        // shared by all webhooks so the facts are collected only once
+                        if (cardBuilder == null) {
+                            cardBuilder = new CardBuilder(run, macroEvaluator);
+                        }
                         Card card = cardBuilder.createStartedCard(webhook.getFactDefinitions());
                         executeWorker(webhook, card);
                     }
@@ -70,13 +101,40 @@ public class Office365ConnectorWebhookNotifier {
         }
     }
 
+    /**
+     * Sends the start notification when the grace period ends, so builds that finish quickly
+     * do not produce start notification followed by the completion one.
+     */
+    private void deferStartedNotification(Webhook webhook) {
+        Timer.get().schedule(() -> NotificationPipeline.get().execute(run, () -> sendDeferredStartedNotification(webhook)),
+                webhook.getStartGracePeriod(), TimeUnit.SECONDS);
+    }
+
+    synchronized void sendDeferredStartedNotification(Webhook webhook) {
+        if (!run.isBuilding()) {
+            Counter.SAVED_START_NOTIFICATIONS.increment();
+            log(String.format("Build has finished within %d seconds, start notification for webhook %s is skipped",
+                    webhook.getStartGracePeriod(), webhook.getName()));
+            return;
+        }
+        if (deferredCardBuilder == null) {
+            deferredCardBuilder = new CardBuilder(run, macroEvaluator);
+        }
+        Card card = deferredCardBuilder.createStartedCard(webhook.getFactDefinitions());
+        executeWorker(webhook, card);
+    }
+
     public void sendBuildCompletedNotification() {
         List<Webhook> webhooks = extractWebhooks(job);
+        CardBuilder cardBuilder = null;
 
         for (Webhook webhook : webhooks) {
             if (decisionMaker.isAtLeastOneRuleMatched(webhook)) {
                 if (decisionMaker.isStatusMatched(webhook)) {
-                    CardBuilder cardBuilder = new CardBuilder(run, taskListener);
+                    // shared by all webhooks so the facts are collected only once
+                    if (cardBuilder == null) {
+                        cardBuilder = new CardBuilder(run, macroEvaluator);
+                    }
                     Card card = cardBuilder.createCompletedCard(webhook.getFactDefinitions());
                     executeWorker(webhook, card);
                 }
@@ -93,7 +151,8 @@ public class Office365ConnectorWebhookNotifier {
     }
 
     public void sendBuildStepNotification(StepParameters stepParameters) {
-        CardBuilder cardBuilder = new CardBuilder(run, taskListener);
+        Webhook webhook = new Webhook(stepParameters.getWebhookUrl());
+        CardBuilder cardBuilder = new CardBuilder(run, macroEvaluator);
         Card card;
         // TODO: improve this logic as the user may send any 'status' via pipeline step
         if (StringUtils.isNotBlank(stepParameters.getMessage())) {
@@ -104,20 +163,63 @@ public class Office365ConnectorWebhookNotifier {
             card = cardBuilder.createCompletedCard(stepParameters.getFactDefinitions());
         }
 
-        Webhook webhook = new Webhook(stepParameters.getWebhookUrl());
         executeWorker(webhook, card);
     }
 
+    /**
+     * Passes the card for the delivery. The card is built and queued even when the {@link CircuitBreaker}
+     * drops notifications to the webhook, so the {@link HttpWorker} keeps it in the {@link DeadLetterStore}.
+     */
     private void executeWorker(Webhook webhook, Card card) {
+        long start = System.nanoTime();
         try {
-            String url = run.getEnvironment(taskListener).expand(webhook.getUrl());
-            String data = gson.toJson(card);
-            HttpWorker worker = new HttpWorker(url, data, webhook.getTimeout(), taskListener.getLogger());
-            worker.submit();
+            String url = expandUrl(webhook.getUrl());
+            if (webhook.getCoalescingWindow() > 0) {
+                Coalescer.get().add(url, webhook, card, taskListener.getLogger());
+                DeliveryMetrics.get().notificationSent(job.getFullName());
+                return;
+            }
+            List<byte[]> payloads = cardAssembler.write(card);
+            if (payloads.size() > 1) {
+                log(String.format("Notification is too big for webhook %s, it is sent as %d cards",
+                        webhook.getName(), payloads.size()));
+            }
+            for (byte[] data : payloads) {
+                HttpWorker worker = new HttpWorker(url, data, webhook.getTimeout(),
+                        ExponentialBackoffRetryPolicy.of(webhook), taskListener.getLogger());
+                DeliveryQueue.get().enqueue(worker);
+            }
+            DeliveryMetrics.get().notificationSent(job.getFullName());
         } catch (IOException | InterruptedException | RejectedExecutionException e) {
             log(String.format("Failed to notify webhook: %s", webhook.getName()));
             e.printStackTrace(taskListener.getLogger());
+        } finally {
+            DeliveryMetrics.get().cardBuilt(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Replaces variables used by the URL with the values from the environment of the build.
+     * It is called once for every notification sent to the webhook, so the counters tell how many expansions were avoided.
+     */
+    String expandUrl(String url) throws IOException, InterruptedException {
+        if (url == null || url.indexOf('$') < 0) {
+            Counter.SKIPPED_URL_EXPANSIONS.increment();
+            return url;
+        }
+        String expandedUrl = expandedUrls.get(url);
+        if (expandedUrl != null) {
+            Counter.SKIPPED_URL_EXPANSIONS.increment();
+        } else {
+            if (environment == null) {
+                environment = run.getEnvironment(taskListener);
+            } else {
+                Counter.REUSED_ENVIRONMENTS.increment();
+            }
+            expandedUrl = environment.expand(url);
+            expandedUrls.put(url, expandedUrl);
         }
+        return expandedUrl;
     }
 
     /**
@@ -0,0 +1,508 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jenkins.plugins.office365connector;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+import hudson.init.InitMilestone;
+import hudson.init.Initializer;
+import hudson.init.Terminator;
+import hudson.util.LogTaskListener;
+import jenkins.model.Jenkins;
+import jenkins.util.SystemProperties;
+import jenkins.util.Timer;
+
+/**
+ * Journal of the notifications that were not delivered yet, so they are not lost when Jenkins is restarted.
+ * Each notification is appended to the active segment file before it is passed to {@link DeliveryQueue}
+ * and acknowledged in the same segment when its delivery has finished. Writes go to the page cache only,
+ * the segments are forced to the disk periodically by single background task so the caller is not slowed down.
+ * Segments with all notifications acknowledged are deleted, notifications found during startup are sent again.
+ * Notifications waiting in {@link Coalescer} are journaled as well, they are acknowledged when their digest is queued.
+ * <ul>
+ *     <li><code>jenkins.plugins.office365connector.Outbox.enabled</code> (default true)</li>
+ *     <li><code>jenkins.plugins.office365connector.Outbox.segmentSize</code> (default 4 MB)</li>
+ *     <li><code>jenkins.plugins.office365connector.Outbox.fsyncInterval</code> (default 200 ms)</li>
+ * </ul>
+ */
+public class Outbox {
+
+    private static final Logger LOGGER = Logger.getLogger(Outbox.class.getName());
+
+    static final boolean ENABLED = SystemProperties.getBoolean(Outbox.class.getName() + ".enabled", true);
+    static final long SEGMENT_SIZE = SystemProperties.getLong(Outbox.class.getName() + ".segmentSize", 4L * 1024 * 1024);
+    static final long FSYNC_INTERVAL = SystemProperties.getLong(Outbox.class.getName() + ".fsyncInterval", 200L);
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private static final byte TYPE_ENTRY = 1;
+    private static final byte TYPE_ACK = 2;
+    // length, checksum, type and id
+    private static final int HEADER_SIZE = 4 + 8 + 1 + 8;
+    // checksum covers everything after the length and the checksum itself
+    private static final int CHECKSUM_OFFSET = 4;
+    private static final int CHECKED_OFFSET = 12;
+    private static final int ID_OFFSET = 13;
+
+    /**
+     * Used when Jenkins is not running, for instance in tests, nothing is written.
+     */
+    private static final Outbox DISABLED = new Outbox();
+
+    private static volatile Outbox instance;
+    // guarded by Outbox.class, reset when Jenkins is started again in the same JVM
+    private static boolean closed;
+
+    private final File directory;
+    private final long segmentSize;
+
+    private final Map<Long, Segment> pending = new ConcurrentHashMap<>();
+    private final List<Segment> segments = new ArrayList<>();
+    private Segment active;
+    private long nextSegment;
+    private long nextId = 1;
+
+    private ScheduledFuture<?> flusher;
+
+    private Outbox() {
+        directory = null;
+        segmentSize = 0;
+    }
+
+    Outbox(File directory, long segmentSize) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        // never append to segments left by previous run, they are replaced when recovered
+        File[] files = listSegments();
+        for (File file : files) {
+            nextSegment = Math.max(nextSegment, getSegmentNumber(file) + 1);
+        }
+    }
+
+    /**
+     * Returns the outbox stored in Jenkins home directory.
+     *
+     * @return outbox
+     */
+    public static Outbox get() {
+        // called for every queued and delivered notification, so the lock is taken only until the journal is opened
+        Outbox outbox = instance;
+        if (outbox != null) {
+            return outbox;
+        }
+        return !ENABLED ? DISABLED : open();
+    }
+
+    private static synchronized Outbox open() {
+        if (instance != null) {
+            return instance;
+        }
+        Jenkins jenkins = Jenkins.getInstanceOrNull();
+        // journal is not opened again when Jenkins is going down, late acknowledgements would be lost anyway
+        if (jenkins == null || closed) {
+            return DISABLED;
+        }
+        Outbox outbox = new Outbox(new File(jenkins.getRootDir(), "office365connector/outbox"), SEGMENT_SIZE);
+        outbox.flusher = Timer.get().scheduleWithFixedDelay(outbox::flush,
+                FSYNC_INTERVAL, FSYNC_INTERVAL, TimeUnit.MILLISECONDS);
+        instance = outbox;
+        return outbox;
+    }
+
+    boolean isEnabled() {
+        return directory != null;
+    }
+
+    /**
+     * Writes the notification into the journal so it can be delivered again after the restart.
+     *
+     * @param worker notification that will be delivered
+     */
+    public void journal(HttpWorker worker) {
+        if (!isEnabled()) {
+            return;
+        }
+        worker.setOutboxId(journal(worker.getUrl(), worker.getData(), worker.getTimeout(), worker.getRetryPolicy()));
+    }
+
+    /**
+     * Writes the notification that is not passed to {@link DeliveryQueue} yet.
+     *
+     * @return identifier of the notification in the journal, <code>0</code> when not written
+     */
+    long journal(String url, byte[] data, int timeout, RetryPolicy retryPolicy) {
+        if (!isEnabled()) {
+            return 0;
+        }
+        ExponentialBackoffRetryPolicy policy = retryPolicy instanceof ExponentialBackoffRetryPolicy
+                ? (ExponentialBackoffRetryPolicy) retryPolicy
+                : new ExponentialBackoffRetryPolicy(retryPolicy.getMaxAttempts(), ExponentialBackoffRetryPolicy.DEFAULT_MAX_DELAY);
+        try {
+            return append(new Entry(0, url, data, timeout, policy.getMaxAttempts(), policy.getMaxDelay()));
+        } catch (IOException e) {
+            // notification is still delivered, it only does not survive the restart
+            LOGGER.log(Level.WARNING, "Failed to write notification into the outbox", e);
+            return 0;
+        }
+    }
+
+    /**
+     * Marks the notification as delivered (or given up), so it is not sent again after restart.
+     *
+     * @param id identifier of the notification in the journal, <code>0</code> when not written
+     */
+    public void acknowledge(long id) {
+        Segment segment = pending.remove(id);
+        if (segment == null) {
+            return;
+        }
+        ByteBuffer record = encode(TYPE_ACK, id, new byte[0]);
+        updateChecksum(record);
+        synchronized (this) {
+            try {
+                segment.write(record);
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Failed to acknowledge notification in the outbox", e);
+            }
+            if (--segment.live == 0 && segment != active) {
+                delete(segment);
+            }
+        }
+    }
+
+    long append(Entry entry) throws IOException {
+        // encode outside of the lock, only the write is serialized
+        ByteBuffer record = encode(TYPE_ENTRY, 0, entry.toBytes());
+        synchronized (this) {
+            if (active == null || active.size >= segmentSize) {
+                roll();
+            }
+            long id = nextId++;
+            record.putLong(ID_OFFSET, id);
+            updateChecksum(record);
+            active.write(record);
+            active.live++;
+            pending.put(id, active);
+            return id;
+        }
+    }
+
+    /**
+     * Forces written records to the disk.
+     */
+    void flush() {
+        List<Segment> written;
+        synchronized (this) {
+            written = new ArrayList<>(segments);
+        }
+        for (Segment segment : written) {
+            try {
+                segment.force();
+            } catch (ClosedChannelException e) {
+                // segment was deleted in the meantime
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Failed to write outbox segment " + segment.file, e);
+            }
+        }
+    }
+
+    /**
+     * Reads notifications that were not acknowledged before Jenkins has stopped and writes them into new segment,
+     * so the old segments can be removed.
+     *
+     * @return notifications that should be delivered again
+     */
+    synchronized List<Entry> recover() throws IOException {
+        List<File> files = new ArrayList<>(Arrays.asList(listSegments()));
+        // skip segments written since Jenkins has started
+        for (Segment segment : segments) {
+            files.remove(segment.file);
+        }
+        if (files.isEmpty()) {
+            return new ArrayList<>();
+        }
+        files.sort(Comparator.comparingLong(Outbox::getSegmentNumber));
+
+        Map<String, Entry> entries = new LinkedHashMap<>();
+        for (File file : files) {
+            read(file, entries);
+        }
+
+        List<Entry> recovered = new ArrayList<>();
+        for (Entry entry : entries.values()) {
+            recovered.add(entry.withId(append(entry)));
+        }
+        for (Segment segment : segments) {
+            segment.force();
+        }
+        for (File file : files) {
+            Files.deleteIfExists(file.toPath());
+        }
+        return recovered;
+    }
+
+    private File[] listSegments() {
+        File[] files = directory.listFiles((dir, name) -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX));
+        return files != null ? files : new File[0];
+    }
+
+    private static void read(File file, Map<String, Entry> entries) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+        String prefix = file.getName() + ":";
+        while (buffer.remaining() >= HEADER_SIZE) {
+            int start = buffer.position();
+            int length = buffer.getInt();
+            long checksum = buffer.getLong();
+            if (length < HEADER_SIZE || length - CHECKED_OFFSET > buffer.remaining()) {
+                // record was not written completely
+                LOGGER.log(Level.WARNING, "Skipping damaged end of outbox segment {0}", file);
+                return;
+            }
+            CRC32 crc = new CRC32();
+            crc.update(buffer.array(), start + CHECKED_OFFSET, length - CHECKED_OFFSET);
+            if (crc.getValue() != checksum) {
+                LOGGER.log(Level.WARNING, "Skipping damaged end of outbox segment {0}", file);
+                return;
+            }
+            byte type = buffer.get();
+            long id = buffer.getLong();
+            byte[] payload = new byte[length - HEADER_SIZE];
+            buffer.get(payload);
+            // identifiers are unique only in the segment
+            if (type == TYPE_ENTRY) {
+                entries.put(prefix + id, Entry.fromBytes(id, payload));
+            } else if (type == TYPE_ACK) {
+                entries.remove(prefix + id);
+            }
+        }
+    }
+
+    private void roll() throws IOException {
+        if (active != null && active.live == 0) {
+            delete(active);
+        }
+        Files.createDirectories(directory.toPath());
+        File file = new File(directory, SEGMENT_PREFIX + nextSegment++ + SEGMENT_SUFFIX);
+        active = new Segment(file);
+        segments.add(active);
+    }
+
+    private void delete(Segment segment) {
+        segments.remove(segment);
+        try {
+            segment.channel.close();
+            Files.deleteIfExists(segment.file.toPath());
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to delete outbox segment " + segment.file, e);
+        }
+    }
+
+    synchronized void close() {
+        if (flusher != null) {
+            flusher.cancel(false);
+        }
+        flush();
+        for (Segment segment : segments) {
+            try {
+                segment.channel.close();
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Failed to close outbox segment " + segment.file, e);
+            }
+        }
+        segments.clear();
+        pending.clear();
+        active = null;
+    }
+
+    private static ByteBuffer encode(byte type, long id, byte[] payload) {
+        ByteBuffer record = ByteBuffer.allocate(HEADER_SIZE + payload.length);
+        record.putInt(record.capacity());
+        record.putLong(0);
+        record.put(type);
+        record.putLong(id);
+        record.put(payload);
+        return record;
+    }
+
+    private static void updateChecksum(ByteBuffer record) {
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), CHECKED_OFFSET, record.capacity() - CHECKED_OFFSET);
+        record.putLong(CHECKSUM_OFFSET, crc.getValue());
+    }
+
+    private static long getSegmentNumber(File file) {
+        String name = file.getName();
+        try {
+            return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Sends again notifications that were not delivered before Jenkins was stopped.
+     */
+    @Initializer(after = InitMilestone.JOB_CONFIG_ADAPTED)
+    public static void replay() {
+        synchronized (Outbox.class) {
+            // Jenkins may be started again in the same JVM after it was stopped, e.g. by tests
+            closed = false;
+        }
+        Outbox outbox = get();
+        if (!outbox.isEnabled()) {
+            return;
+        }
+        List<Entry> entries;
+        try {
+            entries = outbox.recover();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to read notifications from the outbox", e);
+            return;
+        }
+        if (!entries.isEmpty()) {
+            LOGGER.log(Level.INFO, "Sending {0} notifications that were not delivered before restart", entries.size());
+        }
+        // there is no build log anymore
+        LogTaskListener listener = new LogTaskListener(Logger.getLogger(HttpWorker.class.getName()), Level.INFO);
+        for (Entry entry : entries) {
+            HttpWorker worker = new HttpWorker(entry.url, entry.data, entry.timeout,
+                    new ExponentialBackoffRetryPolicy(entry.maxAttempts, entry.maxDelay), listener.getLogger());
+            worker.setOutboxId(entry.id);
+            try {
+                DeliveryQueue.get().submit(worker);
+            } catch (RejectedExecutionException e) {
+                LOGGER.log(Level.WARNING, "Delivery queue is full, notification to {0} was dropped", entry.url);
+                outbox.acknowledge(entry.id);
+            }
+        }
+    }
+
+    /**
+     * Makes sure that all written notifications are on the disk when Jenkins is going down.
+     * It runs after the {@link DeliveryQueue} is drained and the asynchronous requests have completed,
+     * so notifications delivered in the meantime are acknowledged.
+     */
+    @Terminator(requires = {DeliveryQueue.DRAINED, SharedAsyncHttpClient.CLOSED})
+    public static synchronized void shutdown() {
+        closed = true;
+        if (instance != null) {
+            instance.close();
+            instance = null;
+        }
+    }
+
+    /**
+     * Single file of the journal.
+     */
+    private static final class Segment {
+
+        private final File file;
+        private final FileChannel channel;
+        private long size;
+        private int live;
+        private volatile boolean dirty;
+
+        Segment(File file) throws IOException {
+            this.file = file;
+            this.channel = FileChannel.open(file.toPath(),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            this.size = channel.size();
+        }
+
+        void write(ByteBuffer record) throws IOException {
+            record.rewind();
+            while (record.hasRemaining()) {
+                size += channel.write(record);
+            }
+            dirty = true;
+        }
+
+        void force() throws IOException {
+            if (dirty && channel.isOpen()) {
+                dirty = false;
+                channel.force(false);
+            }
+        }
+    }
+
+    /**
+     * Notification stored in the journal.
+     */
+    static final class Entry {
+
+        final long id;
+        final String url;
+        final byte[] data;
+        final int timeout;
+        final int maxAttempts;
+        final long maxDelay;
+
+        Entry(long id, String url, byte[] data, int timeout, int maxAttempts, long maxDelay) {
+            this.id = id;
+            this.url = url;
+            this.data = data;
+            this.timeout = timeout;
+            this.maxAttempts = maxAttempts;
+            this.maxDelay = maxDelay;
+        }
+
+        Entry withId(long newId) {
+            return new Entry(newId, url, data, timeout, maxAttempts, maxDelay);
+        }
+
+        byte[] toBytes() {
+            byte[] urlBytes = url.getBytes(StandardCharsets.UTF_8);
+            ByteBuffer buffer = ByteBuffer.allocate(4 + urlBytes.length + 4 + 4 + 8 + 4 + data.length);
+            buffer.putInt(urlBytes.length).put(urlBytes);
+            buffer.putInt(timeout);
+            buffer.putInt(maxAttempts);
+            buffer.putLong(maxDelay);
+            buffer.putInt(data.length).put(data);
+            return buffer.array();
+        }
+
+        static Entry fromBytes(long id, byte[] bytes) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            byte[] urlBytes = new byte[buffer.getInt()];
+            buffer.get(urlBytes);
+            int timeout = buffer.getInt();
+            int maxAttempts = buffer.getInt();
+            long maxDelay = buffer.getLong();
+            byte[] data = new byte[buffer.getInt()];
+            buffer.get(data);
+            return new Entry(id, new String(urlBytes, StandardCharsets.UTF_8), data, timeout, maxAttempts, maxDelay);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jenkins.plugins.office365connector;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import jenkins.util.SystemProperties;
+
+/**
+ * Limits number of requests sent to single webhook so the notifications are paced out
+ * instead of being throttled by the webhook. Each webhook URL has its own token bucket
+ * which allows short bursts and then lets requests through at configured rate.
+ */
+public final class RateLimiter {
+
+    static final int BURST = SystemProperties.getInteger(RateLimiter.class.getName() + ".burst", 4);
+
+    /**
+     * Buckets that were not used for that long are full again so they can be dropped.
+     */
+    private static final long IDLE_BUCKET_TIMEOUT = TimeUnit.MINUTES.toNanos(10);
+    private static final int CLEANUP_THRESHOLD = 1000;
+
+    private static final RateLimiter INSTANCE = new RateLimiter();
+
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    RateLimiter() {
+    }
+
+    public static RateLimiter get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Reserves permit for single request to passed webhook.
+     *
+     * @param url webhook URL
+     * @return time (in milliseconds) the request must wait before it can be sent
+     */
+    public long reserve(String url) {
+        Webhook.DescriptorImpl global = Webhook.getGlobalConfiguration();
+        int rateLimit = global != null ? global.getGlobalRateLimit() : Webhook.DEFAULT_RATE_LIMIT;
+        return TimeUnit.NANOSECONDS.toMillis(reserve(url, rateLimit, System.nanoTime()));
+    }
+
+    long reserve(String url, int rateLimit, long now) {
+        if (rateLimit <= 0) {
+            return 0;
+        }
+        if (buckets.size() > CLEANUP_THRESHOLD) {
+            buckets.values().removeIf(bucket -> bucket.isIdle(now));
+        }
+        return buckets.computeIfAbsent(url, key -> new TokenBucket(now)).reserve(rateLimit, now);
+    }
+
+    static final class TokenBucket {
+
+        private double storedPermits;
+        private long nextFreeTime;
+
+        TokenBucket(long now) {
+            storedPermits = BURST;
+            nextFreeTime = now;
+        }
+
+        /**
+         * Takes single permit and returns how long (in nanoseconds) the caller must wait for it.
+         * When there is no permit available the next free slot is reserved, so the caller does not compete for it again.
+         */
+        synchronized long reserve(int permitsPerMinute, long now) {
+            long interval = TimeUnit.MINUTES.toNanos(1) / permitsPerMinute;
+            if (now > nextFreeTime) {
+                storedPermits = Math.min(BURST, storedPermits + (double) (now - nextFreeTime) / interval);
+                nextFreeTime = now;
+            }
+            long wait = nextFreeTime - now;
+            double spent = Math.min(1, storedPermits);
+            storedPermits -= spent;
+            nextFreeTime += (long) ((1 - spent) * interval);
+            return wait;
+        }
+
+        synchronized boolean isIdle(long now) {
+            return now - nextFreeTime > IDLE_BUCKET_TIMEOUT;
+        }
+    }
+}
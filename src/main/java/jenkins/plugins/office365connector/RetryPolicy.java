@@ -0,0 +1,44 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jenkins.plugins.office365connector;
+
+/**
+ * Decides if and when failed delivery of the notification should be repeated.
+ */
+public interface RetryPolicy {
+
+    /**
+     * Returns how many times the notification may be sent including the first attempt.
+     *
+     * @return maximum number of attempts
+     */
+    int getMaxAttempts();
+
+    /**
+     * Checks if the failure reported by the webhook is transient so sending the same request again may succeed.
+     *
+     * @param statusCode status code returned by the webhook
+     * @return <code>true</code> if the request should be repeated
+     */
+    boolean isRetryable(int statusCode);
+
+    /**
+     * Calculates how long to wait before the next attempt.
+     *
+     * @param attempt    number of attempts made so far
+     * @param retryAfter delay (in milliseconds) requested by the webhook, <code>0</code> when not provided
+     * @return delay in milliseconds
+     */
+    long getDelay(int attempt, long retryAfter);
+}
@@ -0,0 +1,58 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jenkins.plugins.office365connector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Keeps the latest elements up to the fixed capacity, the oldest ones are overwritten.
+ * Writers do not lock each other, they only claim the next slot, so it can be used by the threads that deliver notifications.
+ *
+ * @param <T> type of the elements
+ */
+final class RingBuffer<T> {
+
+    private final AtomicReferenceArray<T> elements;
+    private final AtomicLong written = new AtomicLong();
+
+    RingBuffer(int capacity) {
+        elements = new AtomicReferenceArray<>(capacity);
+    }
+
+    void add(T element) {
+        long index = written.getAndIncrement();
+        elements.set((int) (index % elements.length()), element);
+    }
+
+    /**
+     * Returns stored elements from the newest to the oldest one.
+     */
+    List<T> getNewestFirst() {
+        int capacity = elements.length();
+        long last = written.get();
+        int count = (int) Math.min(last, capacity);
+        List<T> result = new ArrayList<>(count);
+        for (long index = last - 1; index >= last - count; index--) {
+            T element = elements.get((int) (index % capacity));
+            // slot claimed by the writer that has not stored the element yet
+            if (element != null) {
+                result.add(element);
+            }
+        }
+        return result;
+    }
+}
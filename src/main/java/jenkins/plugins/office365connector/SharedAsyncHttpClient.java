@@ -0,0 +1,164 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jenkins.plugins.office365connector;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import hudson.ProxyConfiguration;
+import hudson.init.Terminator;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import jenkins.model.Jenkins;
+import jenkins.util.SystemProperties;
+
+/**
+ * Keeps non-blocking http clients used by {@link Transport#ASYNC}. Requests do not hold any thread
+ * while they wait for the response, the few threads shared by the clients only handle the responses, and HTTP/2
+ * sends many requests over single connection when the webhook supports it.
+ * Connect timeout can be set only for the whole client, so there is one client for every timeout of the webhooks.
+ * Clients are rebuilt only when proxy configuration of Jenkins has changed, the threads are kept
+ * so the requests sent by the replaced clients still complete.
+ * <ul>
+ *     <li><code>jenkins.plugins.office365connector.SharedAsyncHttpClient.threads</code> (default 2)</li>
+ * </ul>
+ */
+public final class SharedAsyncHttpClient {
+
+    private static final Logger LOGGER = Logger.getLogger(SharedAsyncHttpClient.class.getName());
+
+    static final int THREADS = SystemProperties.getInteger(SharedAsyncHttpClient.class.getName() + ".threads", 2);
+
+    /**
+     * Milestone reached during shutdown when pending requests have completed, services used by their
+     * completion such as the {@link Outbox} are closed only after it.
+     */
+    static final String CLOSED = "jenkins.plugins.office365connector.SharedAsyncHttpClient.closed";
+
+    private static final long CLOSE_TIMEOUT = TimeUnit.SECONDS.toNanos(10);
+
+    private static final Map<Integer, HttpClient> clients = new HashMap<>();
+    private static ExecutorService executor;
+    private static ProxyConfiguration clientProxy;
+
+    private static final AtomicInteger pendingRequests = new AtomicInteger();
+
+    private SharedAsyncHttpClient() {
+    }
+
+    /**
+     * Returns client that matches current proxy configuration and passed timeout.
+     *
+     * @param connectTimeout timeout (in milliseconds) of establishing the connection
+     * @return shared http client
+     */
+    public static synchronized HttpClient get(int connectTimeout) {
+        ProxyConfiguration proxy = getProxyConfiguration();
+        // Jenkins replaces the instance when proxy configuration is saved
+        if (proxy != clientProxy) {
+            clients.clear();
+            clientProxy = proxy;
+        }
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(THREADS,
+                    new NamingThreadFactory(new DaemonThreadFactory(), "Office365Connector async delivery"));
+        }
+        return clients.computeIfAbsent(connectTimeout, timeout -> build(proxy, executor, timeout));
+    }
+
+    /**
+     * Sends the request and passes the response, or the failure, to the callback on the threads of the client.
+     *
+     * @param request        request to send
+     * @param bodyHandler    handler of the response body
+     * @param connectTimeout timeout (in milliseconds) of establishing the connection
+     * @param callback       called when the request has completed
+     * @param <T>            type of the response body
+     */
+    public static <T> void sendAsync(HttpRequest request, HttpResponse.BodyHandler<T> bodyHandler, int connectTimeout,
+                                     BiConsumer<HttpResponse<T>, Throwable> callback) {
+        HttpClient client = get(connectTimeout);
+        pendingRequests.incrementAndGet();
+        try {
+            client.sendAsync(request, bodyHandler).whenComplete((response, error) -> {
+                try {
+                    callback.accept(response, error);
+                } finally {
+                    pendingRequests.decrementAndGet();
+                }
+            });
+        } catch (RuntimeException e) {
+            pendingRequests.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private static ProxyConfiguration getProxyConfiguration() {
+        Jenkins jenkins = Jenkins.getInstanceOrNull();
+        return jenkins != null ? jenkins.proxy : null;
+    }
+
+    private static HttpClient build(ProxyConfiguration proxy, ExecutorService executor, int connectTimeout) {
+        // Jenkins takes care about the proxy, no-proxy hosts and the credentials
+        HttpClient.Builder builder = proxy != null ? ProxyConfiguration.newHttpClientBuilder() : HttpClient.newBuilder();
+        if (connectTimeout > 0) {
+            builder.connectTimeout(Duration.ofMillis(connectTimeout));
+        }
+        return builder
+                // falls back to HTTP/1.1 when the webhook does not support HTTP/2
+                .version(HttpClient.Version.HTTP_2)
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .executor(executor)
+                .build();
+    }
+
+    /**
+     * Waits for the pending requests and releases the threads of the clients, connections are closed
+     * by the clients when they are not used.
+     * It runs after the {@link DeliveryQueue} is drained, so the pending notifications can still be sent.
+     */
+    @Terminator(requires = DeliveryQueue.DRAINED, attains = CLOSED)
+    public static void close() {
+        long deadline = System.nanoTime() + CLOSE_TIMEOUT;
+        try {
+            while (pendingRequests.get() > 0 && System.nanoTime() - deadline < 0) {
+                Thread.sleep(10);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (pendingRequests.get() > 0) {
+            LOGGER.log(Level.WARNING, "{0} notifications did not complete before shutdown", pendingRequests.get());
+        }
+        synchronized (SharedAsyncHttpClient.class) {
+            if (executor != null) {
+                executor.shutdown();
+                executor = null;
+            }
+            clients.clear();
+            clientProxy = null;
+        }
+    }
+}
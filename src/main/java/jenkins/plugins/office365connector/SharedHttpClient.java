@@ -0,0 +1,183 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jenkins.plugins.office365connector;
+
+import java.io.IOException;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+import hudson.ProxyConfiguration;
+import hudson.init.Terminator;
+import jenkins.model.Jenkins;
+import jenkins.util.SystemProperties;
+import org.apache.commons.lang.StringUtils;
+import org.apache.http.HttpException;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.auth.AuthScope;
+import org.apache.http.auth.UsernamePasswordCredentials;
+import org.apache.http.client.CredentialsProvider;
+import org.apache.http.impl.client.BasicCredentialsProvider;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.DefaultProxyRoutePlanner;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.protocol.HttpContext;
+
+/**
+ * Keeps single http client with pool of keep-alive connections that is used by all notifications,
+ * so the TCP and TLS handshakes are not repeated for every request.
+ * The client is rebuilt only when proxy configuration of Jenkins has changed. The replaced client is closed
+ * only after requests that still use it have finished, so they are not aborted by the configuration change.
+ */
+public final class SharedHttpClient {
+
+    private static final Logger LOGGER = Logger.getLogger(SharedHttpClient.class.getName());
+
+    static final int MAX_CONNECTIONS = SystemProperties.getInteger(SharedHttpClient.class.getName() + ".maxConnections", 20);
+    static final int MAX_CONNECTIONS_PER_ROUTE = SystemProperties.getInteger(SharedHttpClient.class.getName() + ".maxConnectionsPerRoute", 5);
+    static final long IDLE_CONNECTION_TIMEOUT = SystemProperties.getLong(SharedHttpClient.class.getName() + ".idleConnectionTimeout", 60L);
+
+    private static CloseableHttpClient client;
+    private static PoolingHttpClientConnectionManager clientConnectionManager;
+    private static ProxyConfiguration clientProxy;
+
+    /**
+     * Clients replaced after the proxy change, with the connection managers that tell if they are still used.
+     */
+    private static final Map<CloseableHttpClient, PoolingHttpClientConnectionManager> retiredClients = new IdentityHashMap<>();
+
+    private SharedHttpClient() {
+    }
+
+    /**
+     * Returns client that matches current proxy configuration.
+     *
+     * @return shared http client
+     */
+    public static synchronized CloseableHttpClient get() {
+        ProxyConfiguration proxy = getProxyConfiguration();
+        // Jenkins replaces the instance when proxy configuration is saved
+        if (client == null || proxy != clientProxy) {
+            if (client != null) {
+                retiredClients.put(client, clientConnectionManager);
+            }
+            clientConnectionManager = createConnectionManager();
+            client = build(proxy, clientConnectionManager);
+            clientProxy = proxy;
+        }
+        closeRetiredClients(false);
+        return client;
+    }
+
+    private static ProxyConfiguration getProxyConfiguration() {
+        Jenkins jenkins = Jenkins.getInstanceOrNull();
+        return jenkins != null ? jenkins.proxy : null;
+    }
+
+    private static PoolingHttpClientConnectionManager createConnectionManager() {
+        // connections are validated when they were not used for a while, TLS sessions are cached by the default SSL context
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(MAX_CONNECTIONS);
+        connectionManager.setDefaultMaxPerRoute(MAX_CONNECTIONS_PER_ROUTE);
+        connectionManager.setValidateAfterInactivity(2000);
+        return connectionManager;
+    }
+
+    private static CloseableHttpClient build(ProxyConfiguration proxy, PoolingHttpClientConnectionManager connectionManager) {
+        HttpClientBuilder builder = HttpClientBuilder.create()
+                .setConnectionManager(connectionManager)
+                // requests are anonymous so the connections may be reused by any of them
+                .disableConnectionState()
+                .evictExpiredConnections()
+                .evictIdleConnections(IDLE_CONNECTION_TIMEOUT, TimeUnit.SECONDS);
+
+        if (proxy != null) {
+            List<Pattern> noProxyHostPatterns = proxy.getNoProxyHostPatterns();
+            builder.setRoutePlanner(new DefaultProxyRoutePlanner(new HttpHost(proxy.name, proxy.port)) {
+                @Override
+                protected HttpHost determineProxy(HttpHost target, HttpRequest request, HttpContext context) throws HttpException {
+                    return isNoProxyHost(target.getHostName(), noProxyHostPatterns)
+                            ? null : super.determineProxy(target, request, context);
+                }
+            });
+            String username = proxy.getUserName();
+            String password = proxy.getPassword();
+            // Consider it to be passed if username specified. Sufficient?
+            if (StringUtils.isNotBlank(username)) {
+                CredentialsProvider credsProvider = new BasicCredentialsProvider();
+                credsProvider.setCredentials(
+                        new AuthScope(proxy.name, proxy.port),
+                        new UsernamePasswordCredentials(username, password));
+                builder.setDefaultCredentialsProvider(credsProvider);
+            }
+        }
+
+        return builder.build();
+    }
+
+    static boolean isNoProxyHost(String host, List<Pattern> noProxyHostPatterns) {
+        if (host != null && noProxyHostPatterns != null) {
+            for (Pattern p : noProxyHostPatterns) {
+                if (p.matcher(host).matches()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Closes replaced clients that have no connection leased by the request, or all of them when forced.
+     */
+    private static void closeRetiredClients(boolean force) {
+        Iterator<Map.Entry<CloseableHttpClient, PoolingHttpClientConnectionManager>> retired = retiredClients.entrySet().iterator();
+        while (retired.hasNext()) {
+            Map.Entry<CloseableHttpClient, PoolingHttpClientConnectionManager> entry = retired.next();
+            if (force || entry.getValue().getTotalStats().getLeased() == 0) {
+                close(entry.getKey());
+                retired.remove();
+            }
+        }
+    }
+
+    private static void close(CloseableHttpClient httpClient) {
+        try {
+            httpClient.close();
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Failed to close http client", e);
+        }
+    }
+
+    /**
+     * Closes the client and all connections kept in the pool.
+     * It runs after the {@link DeliveryQueue} is drained, so the pending notifications can still be sent.
+     */
+    @Terminator(requires = DeliveryQueue.DRAINED)
+    public static synchronized void close() {
+        if (client != null) {
+            close(client);
+            client = null;
+            clientConnectionManager = null;
+            clientProxy = null;
+        }
+        closeRetiredClients(true);
+    }
+}
@@ -0,0 +1,40 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jenkins.plugins.office365connector;
+
+/**
+ * Defines how the notifications are sent to the webhooks.
+ */
+public enum Transport {
+
+    /**
+     * Apache HttpClient, the thread waits for the response of the webhook.
+     */
+    BLOCKING("Blocking (Apache HttpClient)"),
+
+    /**
+     * Java HttpClient with HTTP/2, no thread waits for the response of the webhook.
+     */
+    ASYNC("Non-blocking (Java HttpClient, HTTP/2)");
+
+    private final String displayName;
+
+    Transport(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+}
@@ -0,0 +1,130 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jenkins.plugins.office365connector;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import hudson.Extension;
+import hudson.XmlFile;
+import hudson.model.Saveable;
+import hudson.model.User;
+import hudson.model.listeners.SaveableListener;
+import jenkins.util.SystemProperties;
+
+/**
+ * Remembers full names of the users shown in the notifications by their ids, because looking up the user
+ * may load its configuration from the disk. Names are shared by all notifications,
+ * the least recently used ones are removed when the cache is full and every name expires after some time.
+ * Name of the user is forgotten as soon as the user configuration is saved.
+ * <ul>
+ *     <li><code>jenkins.plugins.office365connector.UserNameCache.capacity</code> (default 1000)</li>
+ *     <li><code>jenkins.plugins.office365connector.UserNameCache.ttl</code> (default 600000 ms)</li>
+ * </ul>
+ */
+public final class UserNameCache {
+
+    static final int CAPACITY = SystemProperties.getInteger(UserNameCache.class.getName() + ".capacity", 1000);
+    static final long TTL = SystemProperties.getLong(UserNameCache.class.getName() + ".ttl", 600000L);
+
+    private static final UserNameCache INSTANCE = new UserNameCache(CAPACITY, TTL, id -> User.getById(id, false));
+
+    private final long ttlNanos;
+    private final Function<String, User> users;
+    private final Map<String, Name> names;
+
+    UserNameCache(int capacity, long ttl, Function<String, User> users) {
+        this.users = users;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttl);
+        this.names = new LinkedHashMap<String, Name>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Name> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    public static UserNameCache get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns full name of the user, the user is looked up only when the name is not known.
+     *
+     * @param id identifier of the user
+     * @return full name of the user or the identifier when there is no such user
+     */
+    public String getFullName(String id) {
+        return getFullName(id, System.nanoTime());
+    }
+
+    String getFullName(String id, long now) {
+        synchronized (this) {
+            Name name = names.get(id);
+            if (name != null && now - name.resolvedAt < ttlNanos) {
+                return name.fullName;
+            }
+        }
+        // resolved outside of the lock as it may read from the disk
+        User user = users.apply(id);
+        String fullName = user != null ? user.getFullName() : id;
+        synchronized (this) {
+            names.put(id, new Name(fullName, now));
+        }
+        return fullName;
+    }
+
+    /**
+     * Forgets the name of the user, e.g. when it might have been changed.
+     *
+     * @param id identifier of the user
+     */
+    public synchronized void invalidate(String id) {
+        names.remove(id);
+    }
+
+    synchronized int size() {
+        return names.size();
+    }
+
+    /**
+     * Full name of the user with the time when it was read.
+     */
+    private static final class Name {
+
+        private final String fullName;
+        private final long resolvedAt;
+
+        Name(String fullName, long resolvedAt) {
+            this.fullName = fullName;
+            this.resolvedAt = resolvedAt;
+        }
+    }
+
+    /**
+     * Forgets the name of the user whose configuration was saved.
+     */
+    @Extension
+    public static class UserChangeListener extends SaveableListener {
+
+        @Override
+        public void onChange(Saveable o, XmlFile file) {
+            if (o instanceof User) {
+                INSTANCE.invalidate(((User) o).getId());
+            }
+        }
+    }
+}
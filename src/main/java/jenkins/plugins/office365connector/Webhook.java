@@ -22,6 +22,7 @@ import hudson.Util;
 import hudson.model.AbstractDescribableImpl;
 import hudson.model.Descriptor;
 import hudson.util.FormValidation;
+import jenkins.model.Jenkins;
 import jenkins.plugins.office365connector.model.FactDefinition;
 import jenkins.plugins.office365connector.model.Macro;
 import jenkins.plugins.office365connector.utils.FormUtils;
@@ -36,6 +37,11 @@ public class Webhook extends AbstractDescribableImpl<Webhook> {
 
     public static final Integer DEFAULT_TIMEOUT = 30000;
 
+    /**
+     * Number of requests per minute that can be sent to single webhook.
+     */
+    public static final int DEFAULT_RATE_LIMIT = 120;
+
     private String name;
     private String url;
 
@@ -50,6 +56,13 @@ public class Webhook extends AbstractDescribableImpl<Webhook> {
 
     private int timeout;
 
+    private int maxAttempts;
+    private int maxRetryDelay;
+
+    private int coalescingWindow;
+
+    private int startGracePeriod;
+
     private List<Macro> macros = Collections.emptyList();
 
     private List<FactDefinition> factDefinitions = Collections.emptyList();
@@ -158,6 +171,56 @@ public class Webhook extends AbstractDescribableImpl<Webhook> {
         this.timeout = timeout;
     }
 
+    /**
+     * Returns how many times the notification may be sent, <code>0</code> means that global configuration is used.
+     */
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    @DataBoundSetter
+    public void setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+    }
+
+    /**
+     * Returns the longest delay (in ms) between attempts, <code>0</code> means that global configuration is used.
+     */
+    public int getMaxRetryDelay() {
+        return maxRetryDelay;
+    }
+
+    @DataBoundSetter
+    public void setMaxRetryDelay(int maxRetryDelay) {
+        this.maxRetryDelay = maxRetryDelay;
+    }
+
+    /**
+     * Returns time (in seconds) during which notifications sent to this webhook are merged into one,
+     * <code>0</code> means that each notification is sent separately.
+     */
+    public int getCoalescingWindow() {
+        return coalescingWindow;
+    }
+
+    @DataBoundSetter
+    public void setCoalescingWindow(int coalescingWindow) {
+        this.coalescingWindow = coalescingWindow;
+    }
+
+    /**
+     * Returns time (in seconds) after which the start notification is sent, it is skipped when the build
+     * has already finished by then. <code>0</code> means that the notification is sent immediately.
+     */
+    public int getStartGracePeriod() {
+        return startGracePeriod;
+    }
+
+    @DataBoundSetter
+    public void setStartGracePeriod(int startGracePeriod) {
+        this.startGracePeriod = startGracePeriod;
+    }
+
     public List<Macro> getMacros() {
         return Util.fixNull(macros);
     }
@@ -176,12 +239,24 @@ public class Webhook extends AbstractDescribableImpl<Webhook> {
         this.factDefinitions = Util.fixNull(factDefinitions);
     }
 
+    /**
+     * Returns global configuration or <code>null</code> when Jenkins is not available.
+     */
+    static DescriptorImpl getGlobalConfiguration() {
+        Jenkins jenkins = Jenkins.getInstanceOrNull();
+        return jenkins != null ? jenkins.getDescriptorByType(DescriptorImpl.class) : null;
+    }
+
     @Extension
     public static class DescriptorImpl extends Descriptor<Webhook> {
         private String url;
         private String name;
         private String globalUrl;
         private String globalName;
+        private int globalMaxAttempts;
+        private int globalMaxRetryDelay;
+        private int globalRateLimit = DEFAULT_RATE_LIMIT;
+        private Transport transport;
 
         public DescriptorImpl() {
             load();
@@ -197,6 +272,14 @@ public class Webhook extends AbstractDescribableImpl<Webhook> {
             return Webhook.DEFAULT_TIMEOUT;
         }
 
+        public int getDefaultMaxAttempts() {
+            return ExponentialBackoffRetryPolicy.DEFAULT_MAX_ATTEMPTS;
+        }
+
+        public int getDefaultMaxRetryDelay() {
+            return ExponentialBackoffRetryPolicy.DEFAULT_MAX_DELAY;
+        }
+
         public FormValidation doCheckUrl(@QueryParameter String value) {
             return FormUtils.formValidateUrl(value);
         }
@@ -245,6 +328,48 @@ public class Webhook extends AbstractDescribableImpl<Webhook> {
             this.globalName = name;
         }
 
+        public int getGlobalMaxAttempts() {
+            return globalMaxAttempts;
+        }
+
+        @DataBoundSetter
+        public void setGlobalMaxAttempts(int maxAttempts) {
+            this.globalMaxAttempts = maxAttempts;
+        }
+
+        public int getGlobalMaxRetryDelay() {
+            return globalMaxRetryDelay;
+        }
+
+        @DataBoundSetter
+        public void setGlobalMaxRetryDelay(int maxRetryDelay) {
+            this.globalMaxRetryDelay = maxRetryDelay;
+        }
+
+        /**
+         * Returns number of requests per minute that can be sent to single webhook, <code>0</code> means no limit.
+         */
+        public int getGlobalRateLimit() {
+            return globalRateLimit;
+        }
+
+        @DataBoundSetter
+        public void setGlobalRateLimit(int rateLimit) {
+            this.globalRateLimit = rateLimit;
+        }
+
+        /**
+         * Returns how the notifications are sent, {@link Transport#BLOCKING} when not configured.
+         */
+        public Transport getTransport() {
+            return transport != null ? transport : Transport.BLOCKING;
+        }
+
+        @DataBoundSetter
+        public void setTransport(Transport transport) {
+            this.transport = transport;
+        }
+
         @Override
         public boolean configure(StaplerRequest req, JSONObject formData) {
             req.bindJSON(this, formData);
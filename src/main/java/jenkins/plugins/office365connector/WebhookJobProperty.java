@@ -40,8 +40,8 @@ public class WebhookJobProperty extends JobProperty<AbstractProject<?, ?>> {
 
     @Override
     public boolean prebuild(AbstractBuild<?, ?> run, BuildListener listener) {
-        Office365ConnectorWebhookNotifier notifier = new Office365ConnectorWebhookNotifier(run, listener);
-        notifier.sendBuildStartedNotification(true);
+        NotificationPipeline.get().submit(run, listener,
+                notifier -> notifier.sendBuildStartedNotification(true));
 
         return super.prebuild(run, listener);
     }
@@ -43,6 +43,10 @@ public class Card {
         return this.sections;
     }
 
+    public void setSections(List<Section> sections) {
+        this.sections = sections;
+    }
+
     public void setThemeColor(String themeColor) {
         this.themeColor = themeColor;
     }
@@ -5,6 +5,9 @@ import hudson.model.Run;
 import hudson.model.TaskListener;
 import hudson.model.listeners.RunListener;
 import edu.umd.cs.findbugs.annotations.NonNull;
+import jenkins.plugins.office365connector.BuildHistoryIndex;
+import jenkins.plugins.office365connector.CulpritAggregator;
+import jenkins.plugins.office365connector.NotificationPipeline;
 import jenkins.plugins.office365connector.Office365ConnectorWebhookNotifier;
 
 /**
@@ -28,8 +31,8 @@ public class Office365ConnectorBuildListener extends RunListener<Run> {
      */
     @Override
     public void onStarted(Run run, TaskListener listener) {
-        Office365ConnectorWebhookNotifier notifier = new Office365ConnectorWebhookNotifier(run, listener);
-        notifier.sendBuildStartedNotification(false);
+        NotificationPipeline.get().submit(run, listener,
+                notifier -> notifier.sendBuildStartedNotification(false));
     }
 
     /**
@@ -41,7 +44,11 @@ public class Office365ConnectorBuildListener extends RunListener<Run> {
      */
     @Override
     public void onCompleted(Run run, @NonNull TaskListener listener) {
-        Office365ConnectorWebhookNotifier notifier = new Office365ConnectorWebhookNotifier(run, listener);
-        notifier.sendBuildCompletedNotification();
+        NotificationPipeline.get().submit(run, listener, notifier -> {
+            // history and change log are read and written outside of the thread that completes the build
+            BuildHistoryIndex.get().record(run);
+            CulpritAggregator.get().record(run);
+            notifier.sendBuildCompletedNotification();
+        });
     }
 }
@@ -0,0 +1,210 @@
+package jenkins.plugins.office365connector;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+
+import hudson.model.AbstractBuild;
+import hudson.model.AbstractProject;
+import hudson.model.Result;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class BuildHistoryIndexTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private AbstractProject job;
+
+    @Before
+    public void setUp() {
+        job = mock(AbstractProject.class);
+        when(job.getFullName()).thenReturn("folder/myJob");
+        when(job.getRootDir()).thenReturn(folder.getRoot());
+        when(job.getProperty(WebhookJobProperty.class)).thenReturn(mock(WebhookJobProperty.class));
+    }
+
+    @Test
+    public void record_OnFirstBuild_ComputesStreakFromHistory() {
+
+        // given
+        BuildHistoryIndex index = new BuildHistoryIndex();
+        AbstractBuild first = mockRun(1, Result.FAILURE);
+
+        // when
+        index.record(first);
+
+        // then
+        BuildHistoryIndex.Streak streak = index.getPrevious(mockRun(2, null));
+        assertThat(streak.getNumber()).isEqualTo(1);
+        assertThat(streak.getResult()).isEqualTo(Result.FAILURE);
+        assertThat(streak.getFailingSince()).isOne();
+        assertThat(streak.getLastNotAbortedResult()).isEqualTo(Result.FAILURE);
+    }
+
+    @Test
+    public void record_OnFailureStreak_KeepsFirstFailedBuild() {
+
+        // given
+        BuildHistoryIndex index = new BuildHistoryIndex();
+        index.record(mockRun(1, Result.SUCCESS));
+
+        // when
+        index.record(mockRun(2, Result.FAILURE));
+        index.record(mockRun(3, Result.FAILURE));
+        index.record(mockRun(4, Result.FAILURE));
+
+        // then
+        BuildHistoryIndex.Streak streak = index.getPrevious(mockRun(5, null));
+        assertThat(streak.getResult()).isEqualTo(Result.FAILURE);
+        assertThat(streak.getFailingSince()).isEqualTo(2);
+    }
+
+    @Test
+    public void record_OnAbortedBuilds_KeepsLastNotAbortedResult() {
+
+        // given
+        BuildHistoryIndex index = new BuildHistoryIndex();
+        index.record(mockRun(1, Result.UNSTABLE));
+
+        // when
+        index.record(mockRun(2, Result.ABORTED));
+        index.record(mockRun(3, Result.ABORTED));
+
+        // then
+        BuildHistoryIndex.Streak streak = index.getPrevious(mockRun(4, null));
+        assertThat(streak.getResult()).isEqualTo(Result.ABORTED);
+        assertThat(streak.getFailingSince()).isZero();
+        assertThat(streak.getLastNotAbortedResult()).isEqualTo(Result.UNSTABLE);
+    }
+
+    @Test
+    public void record_OnUnknownPreviousBuild_LimitsWalkOfHistory() {
+
+        // given
+        BuildHistoryIndex index = new BuildHistoryIndex(2);
+        AbstractBuild first = mockRun(1, Result.FAILURE);
+        AbstractBuild second = mockRun(2, Result.FAILURE);
+        AbstractBuild third = mockRun(3, Result.FAILURE);
+        AbstractBuild fourth = mockRun(4, Result.FAILURE);
+        when(fourth.getPreviousBuild()).thenReturn(third);
+        when(third.getPreviousBuild()).thenReturn(second);
+        when(second.getPreviousBuild()).thenReturn(first);
+
+        // when
+        index.record(fourth);
+
+        // then
+        assertThat(index.getPrevious(mockRun(5, null)).getFailingSince()).isEqualTo(2);
+        verify(second, never()).getPreviousBuild();
+    }
+
+    @Test
+    public void record_OnNextBuild_DoesNotReadHistory() {
+
+        // given
+        BuildHistoryIndex index = new BuildHistoryIndex();
+        index.record(mockRun(1, Result.FAILURE));
+        AbstractBuild second = mockRun(2, Result.FAILURE);
+
+        // when
+        index.record(second);
+
+        // then
+        verify(second, never()).getPreviousBuild();
+        verify(second, never()).getPreviousNotFailedBuild();
+    }
+
+    @Test
+    public void record_OnOlderBuild_KeepsNewerStreak() {
+
+        // given
+        BuildHistoryIndex index = new BuildHistoryIndex();
+        index.record(mockRun(1, Result.SUCCESS));
+        index.record(mockRun(2, Result.FAILURE));
+
+        // when
+        index.record(mockRun(1, Result.SUCCESS));
+
+        // then
+        assertThat(index.getPrevious(mockRun(3, null)).getResult()).isEqualTo(Result.FAILURE);
+    }
+
+    @Test
+    public void record_OnJobWithoutWebhooks_SkipsBuild() {
+
+        // given
+        BuildHistoryIndex index = new BuildHistoryIndex();
+        when(job.getProperty(WebhookJobProperty.class)).thenReturn(null);
+
+        // when
+        index.record(mockRun(1, Result.SUCCESS));
+
+        // then
+        assertThat(index.getPrevious(mockRun(2, null))).isNull();
+        assertThat(folder.getRoot().list()).isEmpty();
+    }
+
+    @Test
+    public void getPrevious_OnRecordedBuild_ReturnsStreakOfBuildBefore() {
+
+        // given
+        BuildHistoryIndex index = new BuildHistoryIndex();
+        index.record(mockRun(1, Result.FAILURE));
+        AbstractBuild second = mockRun(2, Result.SUCCESS);
+        index.record(second);
+
+        // when
+        BuildHistoryIndex.Streak streak = index.getPrevious(second);
+
+        // then
+        assertThat(streak.getNumber()).isOne();
+        assertThat(streak.getResult()).isEqualTo(Result.FAILURE);
+    }
+
+    @Test
+    public void getPrevious_OnUnknownBuild_ReturnsNull() {
+
+        // given
+        BuildHistoryIndex index = new BuildHistoryIndex();
+        index.record(mockRun(1, Result.SUCCESS));
+
+        // when & then
+        assertThat(index.getPrevious(mockRun(5, null))).isNull();
+    }
+
+    @Test
+    public void record_StoresIndexThatSurvivesRestart() {
+
+        // given
+        BuildHistoryIndex index = new BuildHistoryIndex();
+        index.record(mockRun(1, Result.SUCCESS));
+        index.record(mockRun(2, Result.FAILURE));
+        AbstractBuild third = mockRun(3, Result.FAILURE);
+
+        // when
+        BuildHistoryIndex restarted = new BuildHistoryIndex();
+        restarted.record(third);
+
+        // then
+        assertThat(new File(folder.getRoot(), BuildHistoryIndex.FILE_NAME)).exists();
+        verify(third, never()).getPreviousNotFailedBuild();
+        BuildHistoryIndex.Streak streak = restarted.getPrevious(mockRun(4, null));
+        assertThat(streak.getFailingSince()).isEqualTo(2);
+    }
+
+    private AbstractBuild mockRun(int number, Result result) {
+        AbstractBuild run = mock(AbstractBuild.class);
+        when(run.getParent()).thenReturn(job);
+        when(run.getNumber()).thenReturn(number);
+        when(run.getResult()).thenReturn(result);
+        return run;
+    }
+}
@@ -0,0 +1,242 @@
+package jenkins.plugins.office365connector;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import jenkins.plugins.office365connector.model.Card;
+import jenkins.plugins.office365connector.model.Fact;
+import jenkins.plugins.office365connector.model.PotentialAction;
+import jenkins.plugins.office365connector.model.Section;
+import org.apache.commons.lang.StringUtils;
+import org.junit.Test;
+
+public class CardAssemblerTest {
+
+    private static final int MAX_SIZE = 2000;
+
+    private final CardWriter cardWriter = new CardWriter(false);
+    private final CardAssembler cardAssembler = new CardAssembler(cardWriter, MAX_SIZE, 100);
+
+    @Test
+    public void write_OnSmallCard_ReturnsSinglePayload() {
+
+        // given
+        Card card = createCard(Arrays.asList(new Fact("Status", "Success"), new Fact("Remarks", "Started by user")));
+
+        // when
+        List<byte[]> payloads = cardAssembler.write(card);
+
+        // then
+        assertThat(payloads).hasSize(1);
+        assertThat(payloads.get(0)).isEqualTo(cardWriter.write(card));
+    }
+
+    @Test
+    public void write_OnBigCard_ReturnsPayloadsWithinLimit() {
+
+        // given
+        Card card = createCard(createFacts(50, 90));
+
+        // when
+        List<byte[]> payloads = cardAssembler.write(card);
+
+        // then
+        assertThat(payloads.size()).isGreaterThan(1);
+        assertThat(payloads).allMatch(payload -> payload.length <= MAX_SIZE);
+    }
+
+    @Test
+    public void assemble_OnLongValue_TruncatesIt() {
+
+        // given
+        List<Fact> facts = new ArrayList<>();
+        facts.add(new Fact("Status", "Failed"));
+        facts.add(new Fact("Developers", StringUtils.repeat("x", 5000)));
+        Card card = createCard(facts);
+
+        // when
+        List<Card> cards = cardAssembler.assemble(card);
+
+        // then
+        assertThat(cards).hasSize(1);
+        Card assembled = cards.get(0);
+        assertThat(assembled.getSummary()).isEqualTo(card.getSummary());
+        assertThat(assembled.getPotentialAction()).isSameAs(card.getPotentialAction());
+        List<Fact> assembledFacts = assembled.getSections().get(0).getFacts();
+        assertThat(assembledFacts.get(0)).isSameAs(facts.get(0));
+        assertThat(assembledFacts.get(1).getValue())
+                .isEqualTo(StringUtils.repeat("x", 100) + CardAssembler.TRUNCATION_MARKER);
+    }
+
+    @Test
+    public void assemble_OnManyFacts_SplitsThemIntoContinuationCards() {
+
+        // given
+        List<Fact> facts = createFacts(50, 90);
+        Card card = createCard(facts);
+
+        // when
+        List<Card> cards = cardAssembler.assemble(card);
+
+        // then
+        assertThat(cards.size()).isGreaterThan(1);
+        List<Fact> assembledFacts = new ArrayList<>();
+        for (int i = 0; i < cards.size(); i++) {
+            Card assembled = cards.get(i);
+            assertThat(cardWriter.write(assembled).length).isLessThanOrEqualTo(MAX_SIZE);
+            assertThat(assembled.getSummary()).isEqualTo(String.format("%s (%d/%d)", card.getSummary(), i + 1, cards.size()));
+            assertThat(assembled.getThemeColor()).isEqualTo(card.getThemeColor());
+            Section section = assembled.getSections().get(0);
+            assertThat(section.getActivityTitle()).isEqualTo("Notification from myJob");
+            assembledFacts.addAll(section.getFacts());
+        }
+        assertThat(assembledFacts).containsExactlyElementsOf(facts);
+    }
+
+    @Test
+    public void assemble_OnManyFacts_KeepsActionsAndMessageOnFirstCard() {
+
+        // given
+        Card card = createCard(createFacts(50, 90));
+
+        // when
+        List<Card> cards = cardAssembler.assemble(card);
+
+        // then
+        assertThat(cards.get(0).getPotentialAction()).isSameAs(card.getPotentialAction());
+        assertThat(cards.get(0).getSections().get(0).getActivitySubtitle()).isEqualTo("Latest status of build #1");
+        for (Card continuation : cards.subList(1, cards.size())) {
+            assertThat(continuation.getPotentialAction()).isNull();
+            assertThat(continuation.getSections().get(0).getActivitySubtitle()).isNull();
+        }
+    }
+
+    @Test
+    public void assemble_OnValueTooBigForAnyCard_ShortensItToFit() {
+
+        // given
+        CardAssembler assembler = new CardAssembler(cardWriter, MAX_SIZE, 0);
+        Card card = createCard(Collections.singletonList(new Fact("Log", StringUtils.repeat("<x>", 2000))));
+
+        // when
+        List<Card> cards = assembler.assemble(card);
+
+        // then
+        assertThat(cards).hasSize(1);
+        assertThat(cardWriter.write(cards.get(0)).length).isLessThanOrEqualTo(MAX_SIZE);
+        assertThat(cards.get(0).getSections().get(0).getFacts().get(0).getValue()).endsWith(CardAssembler.TRUNCATION_MARKER);
+    }
+
+    @Test
+    public void assemble_OnTooLongMessage_ShortensIt() {
+
+        // given
+        Card card = new Card("myJob: Build #1", new Section("Notification from myJob", StringUtils.repeat("m", 5000),
+                Collections.singletonList(new Fact("Status", "Success"))));
+
+        // when
+        List<Card> cards = cardAssembler.assemble(card);
+
+        // then
+        assertThat(cards).hasSize(1);
+        Section section = cards.get(0).getSections().get(0);
+        assertThat(section.getActivitySubtitle()).endsWith(CardAssembler.TRUNCATION_MARKER);
+        assertThat(section.getFacts()).extracting(Fact::getValue).containsExactly("Success");
+        assertThat(cardWriter.write(cards.get(0)).length).isLessThanOrEqualTo(MAX_SIZE);
+    }
+
+    @Test
+    public void assemble_OnNameTooBigForAnyCard_LeavesFactOut() {
+
+        // given
+        List<Fact> facts = Arrays.asList(new Fact("Status", "Failed"), new Fact(StringUtils.repeat("n", 3000), "value"));
+        Card card = createCard(facts);
+
+        // when
+        List<Card> cards = cardAssembler.assemble(card);
+
+        // then
+        assertThat(cards).hasSize(1);
+        assertThat(cardWriter.write(cards.get(0)).length).isLessThanOrEqualTo(MAX_SIZE);
+        assertThat(cards.get(0).getSections().get(0).getFacts()).containsExactly(facts.get(0));
+    }
+
+    @Test
+    public void write_OnBigCardWithoutSections_ShortensSummary() {
+
+        // given
+        Card card = new Card(StringUtils.repeat("s", 5000), (Section) null);
+        card.setSections(null);
+
+        // when
+        List<byte[]> payloads = cardAssembler.write(card);
+
+        // then
+        assertThat(payloads).hasSize(1);
+        assertThat(payloads.get(0).length).isLessThanOrEqualTo(MAX_SIZE);
+    }
+
+    @Test
+    public void write_OnManyFactsWithPrettyPrint_FillsCardsUpToLimit() {
+
+        // given
+        CardWriter prettyWriter = new CardWriter(true);
+        CardAssembler assembler = new CardAssembler(prettyWriter, MAX_SIZE, 100);
+        Card card = createCard(createFacts(200, 10));
+
+        // when
+        List<byte[]> payloads = assembler.write(card);
+
+        // then
+        assertThat(payloads.size()).isGreaterThan(1);
+        assertThat(payloads).allMatch(payload -> payload.length <= MAX_SIZE);
+        // size is tracked exactly, so the card is filled until the next fact would not fit
+        assertThat(payloads.get(0).length).isGreaterThan(MAX_SIZE - 100);
+    }
+
+    @Test
+    public void truncate_OnSurrogatePair_DoesNotSplitIt() {
+
+        // given
+        String value = "ab\uD83D\uDE00cd";
+
+        // when
+        String truncated = CardAssembler.truncate(value, 3);
+
+        // then
+        assertThat(truncated).isEqualTo("ab" + CardAssembler.TRUNCATION_MARKER);
+    }
+
+    @Test
+    public void truncate_OnShortValue_ReturnsIt() {
+
+        // given
+        String value = "abc";
+
+        // when
+        String truncated = CardAssembler.truncate(value, 3);
+
+        // then
+        assertThat(truncated).isSameAs(value);
+    }
+
+    private static List<Fact> createFacts(int count, int valueLength) {
+        List<Fact> facts = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            facts.add(new Fact("Fact " + i, StringUtils.repeat(String.valueOf(i % 10), valueLength)));
+        }
+        return facts;
+    }
+
+    private static Card createCard(List<Fact> facts) {
+        Card card = new Card("myJob: Build #1", new Section("Notification from myJob", "Latest status of build #1", facts));
+        card.setThemeColor("#FF0000");
+        card.setPotentialAction(Collections.singletonList(
+                new PotentialAction("View Build", "http://localhost:8080/job/myJob/1/")));
+        return card;
+    }
+}
@@ -2,9 +2,12 @@ package jenkins.plugins.office365connector;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.Collections;
+import java.util.List;
 
 import hudson.model.AbstractBuild;
 import hudson.model.AbstractProject;
@@ -13,6 +16,7 @@ import hudson.model.Run;
 import hudson.model.TaskListener;
 import jenkins.model.Jenkins;
 import jenkins.plugins.office365connector.model.Card;
+import jenkins.plugins.office365connector.model.FactDefinition;
 import jenkins.plugins.office365connector.model.Section;
 import jenkins.plugins.office365connector.workflow.AbstractTest;
 import jenkins.plugins.office365connector.workflow.StepParameters;
@@ -412,6 +416,46 @@ public class CardBuilderTest extends AbstractTest {
     }
 
 
+    @Test
+    public void createCompletedCard_OnManyWebhooks_CollectsBuildFactsOnce() {
+
+        // given
+        when(run.getResult()).thenReturn(Result.FAILURE);
+        mockCause("myCause");
+        String userFactValue = "myValue";
+        mockTokenMacro(userFactValue);
+        List<FactDefinition> factDefinitions = Collections.singletonList(new FactDefinition("myFact", "${MY_FACT}"));
+
+        // when
+        Card firstCard = cardBuilder.createCompletedCard(factDefinitions);
+        Card secondCard = cardBuilder.createCompletedCard(Collections.emptyList());
+
+        // then
+        verify(run, times(1)).getCauses();
+        FactAssertion.assertThatLast(firstCard.getSections().get(0).getFacts(), 3)
+                .hasName("myFact").hasValue(userFactValue);
+        FactAssertion.assertThatLast(secondCard.getSections().get(0).getFacts(), 2)
+                .hasName(FactsBuilder.NAME_REMARKS).hasValue("myCause.");
+        assertThat(secondCard.getSummary()).isEqualTo(firstCard.getSummary());
+        assertThat(secondCard.getThemeColor()).isEqualTo(firstCard.getThemeColor());
+    }
+
+    @Test
+    public void createStartedCard_OnManyWebhooks_CollectsBuildFactsOnce() {
+
+        // given
+        mockCause("myCause");
+
+        // when
+        Card firstCard = cardBuilder.createStartedCard(Collections.emptyList());
+        Card secondCard = cardBuilder.createStartedCard(Collections.emptyList());
+
+        // then
+        verify(run, times(1)).getCauses();
+        assertThat(secondCard.getSections().get(0).getFacts()).isNotSameAs(firstCard.getSections().get(0).getFacts());
+        assertThat(secondCard.getSections().get(0).getActivityTitle()).isEqualTo(firstCard.getSections().get(0).getActivityTitle());
+    }
+
     @Test
     public void createBuildMessageCard_ReturnsCard() {
 
@@ -0,0 +1,99 @@
+package jenkins.plugins.office365connector;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import com.google.gson.FieldNamingPolicy;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import jenkins.plugins.office365connector.model.Card;
+import jenkins.plugins.office365connector.model.Fact;
+import jenkins.plugins.office365connector.model.PotentialAction;
+import jenkins.plugins.office365connector.model.Section;
+import org.junit.Test;
+
+public class CardWriterTest {
+
+    @Test
+    public void write_ProducesSameOutputAsGson() {
+
+        // given
+        Card card = createCard();
+        Gson gson = new GsonBuilder().setFieldNamingPolicy(FieldNamingPolicy.IDENTITY).create();
+
+        // when
+        byte[] data = new CardWriter(false).write(card);
+
+        // then
+        assertThat(new String(data, StandardCharsets.UTF_8)).isEqualTo(gson.toJson(card));
+    }
+
+    @Test
+    public void write_OnPrettyPrint_ProducesSameOutputAsGson() {
+
+        // given
+        Card card = createCard();
+        Gson gson = new GsonBuilder().setFieldNamingPolicy(FieldNamingPolicy.IDENTITY).setPrettyPrinting().create();
+
+        // when
+        byte[] data = new CardWriter(true).write(card);
+
+        // then
+        assertThat(new String(data, StandardCharsets.UTF_8)).isEqualTo(gson.toJson(card));
+    }
+
+    @Test
+    public void write_OnMissingValues_SkipsThem() {
+
+        // given
+        Card card = new Card(null, new Section(null, null, null));
+
+        // when
+        byte[] data = new CardWriter(false).write(card);
+
+        // then
+        assertThat(new String(data, StandardCharsets.UTF_8))
+                .isEqualTo("{\"themeColor\":\"3479BF\",\"sections\":[{\"markdown\":true}]}");
+    }
+
+    @Test
+    public void write_OnNullCard_WritesNull() {
+
+        // given
+        Card card = null;
+
+        // when
+        byte[] data = new CardWriter(false).write(card);
+
+        // then
+        assertThat(new String(data, StandardCharsets.UTF_8)).isEqualTo("null");
+    }
+
+    @Test
+    public void write_ReusesBuffer_ForConsecutiveCards() {
+
+        // given
+        CardWriter writer = new CardWriter(false);
+        byte[] first = writer.write(createCard());
+
+        // when
+        byte[] second = writer.write(createCard());
+
+        // then
+        assertThat(second).isEqualTo(first);
+    }
+
+    static Card createCard() {
+        Section section = new Section("Notification from <myJob>", "Latest status of build #12",
+                Arrays.asList(new Fact("Status", "Build Success"),
+                        new Fact("Remarks", "Started by user 'Łukasz' = \"admin\" & ☃"),
+                        new Fact("Empty", null)));
+        Card card = new Card("myJob: Build Success", section);
+        card.setThemeColor("#00FF00");
+        card.setPotentialAction(Arrays.asList(new PotentialAction("View Build", "http://localhost/job/myJob/12/"),
+                new PotentialAction("Open", Arrays.asList("http://a/", "http://b/?x=1&y=2"))));
+        return card;
+    }
+}
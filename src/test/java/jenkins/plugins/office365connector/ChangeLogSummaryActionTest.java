@@ -0,0 +1,127 @@
+package jenkins.plugins.office365connector;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import hudson.model.AbstractBuild;
+import hudson.model.User;
+import hudson.scm.ChangeLogSet;
+import jenkins.plugins.office365connector.helpers.ChangeLogSetBuilder;
+import org.junit.Test;
+
+public class ChangeLogSummaryActionTest {
+
+    @Test
+    public void of_ComputesSummaryOfChanges() {
+
+        // given
+        AbstractBuild run = mock(AbstractBuild.class);
+        List<ChangeLogSet> changeSets = Arrays.asList(
+                new ChangeLogSetBuilder(run, mockEntry("Peter", "src/main/App.java", "README.md")),
+                new ChangeLogSetBuilder(run, mockEntry("Ann", "src/test/AppTest.java"), mockEntry("Peter", "/docs/index.md")));
+        when(run.getChangeSets()).thenReturn(changeSets);
+
+        // when
+        ChangeLogSummaryAction summary = ChangeLogSummaryAction.of(run);
+
+        // then
+        assertThat(summary.getAuthors()).containsExactly("Ann", "Peter");
+        assertThat(summary.getCommitCount()).isEqualTo(3);
+        assertThat(summary.getPathPrefixes()).containsExactly("README.md", "docs/", "src/");
+        verify(run).addOrReplaceAction(summary);
+    }
+
+    @Test
+    public void of_OnSameChangeLog_ReusesSummary() {
+
+        // given
+        AbstractBuild run = mock(AbstractBuild.class);
+        List<ChangeLogSet> changeSets = Collections.singletonList(new ChangeLogSetBuilder(run, mockEntry("Peter")));
+        when(run.getChangeSets()).thenReturn(changeSets);
+        ChangeLogSummaryAction summary = ChangeLogSummaryAction.of(run);
+        when(run.getAction(ChangeLogSummaryAction.class)).thenReturn(summary);
+
+        // when & then
+        assertThat(ChangeLogSummaryAction.of(run)).isSameAs(summary);
+    }
+
+    @Test
+    public void of_OnNewChangeLog_ComputesSummaryAgain() {
+
+        // given
+        AbstractBuild run = mock(AbstractBuild.class);
+        when(run.isBuilding()).thenReturn(true);
+        when(run.getChangeSets()).thenReturn(Collections.singletonList(new ChangeLogSetBuilder(run)));
+        ChangeLogSummaryAction summary = ChangeLogSummaryAction.of(run);
+        when(run.getAction(ChangeLogSummaryAction.class)).thenReturn(summary);
+        when(run.getChangeSets()).thenReturn(Collections.singletonList(new ChangeLogSetBuilder(run, mockEntry("Peter"))));
+
+        // when
+        ChangeLogSummaryAction newSummary = ChangeLogSummaryAction.of(run);
+
+        // then
+        assertThat(newSummary.getAuthors()).containsExactly("Peter");
+    }
+
+    @Test
+    public void of_OnRunningBuildWithSameChangeLog_DoesNotReadCommitsAgain() {
+
+        // given
+        AbstractBuild run = mock(AbstractBuild.class);
+        when(run.isBuilding()).thenReturn(true);
+        ChangeLogSetBuilder changeSet = spy(new ChangeLogSetBuilder(run, mockEntry("Peter")));
+        when(run.getChangeSets()).thenReturn(Collections.singletonList(changeSet));
+        ChangeLogSummaryAction summary = ChangeLogSummaryAction.of(run);
+        when(run.getAction(ChangeLogSummaryAction.class)).thenReturn(summary);
+
+        // when
+        ChangeLogSummaryAction reused = ChangeLogSummaryAction.of(run);
+        ChangeLogSummaryAction.of(run);
+
+        // then
+        assertThat(reused).isSameAs(summary);
+        verify(changeSet, times(1)).iterator();
+    }
+
+    @Test
+    public void of_OnLoadedSummaryOfCompletedBuild_DoesNotReadChangeLog() {
+
+        // given
+        AbstractBuild run = mock(AbstractBuild.class);
+        ChangeLogSummaryAction loaded = new ChangeLogSummaryAction(Collections.singletonList("Peter"), 1,
+                Collections.emptyList(), 0);
+        when(run.getAction(ChangeLogSummaryAction.class)).thenReturn(loaded);
+
+        // when
+        ChangeLogSummaryAction summary = ChangeLogSummaryAction.of(run);
+
+        // then
+        assertThat(summary).isSameAs(loaded);
+        verify(run, never()).getChangeSets();
+    }
+
+    @Test
+    public void getPathPrefix_OnFileInRootDirectory_ReturnsFile() {
+
+        // when & then
+        assertThat(ChangeLogSummaryAction.getPathPrefix("pom.xml")).isEqualTo("pom.xml");
+    }
+
+    private static ChangeLogSet.Entry mockEntry(String author, String... paths) {
+        User user = mock(User.class);
+        when(user.getFullName()).thenReturn(author);
+        ChangeLogSet.Entry entry = mock(ChangeLogSet.Entry.class);
+        when(entry.getAuthor()).thenReturn(user);
+        when(entry.getAffectedPaths()).thenReturn(Arrays.asList(paths));
+        return entry;
+    }
+}
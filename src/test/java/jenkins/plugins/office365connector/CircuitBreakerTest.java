@@ -0,0 +1,228 @@
+package jenkins.plugins.office365connector;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import org.junit.Test;
+
+public class CircuitBreakerTest {
+
+    private static final String URL = "https://outlook.office.com/webhook/123";
+    private static final long COOL_DOWN = 1000;
+    private static final long AFTER_COOL_DOWN = TimeUnit.MILLISECONDS.toNanos(COOL_DOWN);
+
+    @Test
+    public void allowRequest_OnUnknownWebhook_AllowsRequest() {
+
+        // given
+        CircuitBreaker breaker = new CircuitBreaker(3, COOL_DOWN);
+
+        // when & then
+        assertThat(breaker.allowRequest(URL, 0)).isTrue();
+        assertThat(breaker.getState(URL)).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    public void recordFailure_BelowThreshold_KeepsCircuitClosed() {
+
+        // given
+        CircuitBreaker breaker = new CircuitBreaker(3, COOL_DOWN);
+
+        // when
+        breaker.recordFailure(URL, 0);
+        breaker.recordFailure(URL, 0);
+
+        // then
+        assertThat(breaker.getState(URL)).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(breaker.isOpen(URL, 0)).isFalse();
+        assertThat(breaker.allowRequest(URL, 0)).isTrue();
+        assertThat(breaker.getOpenCount()).isZero();
+    }
+
+    @Test
+    public void recordFailure_OnThreshold_OpensCircuit() {
+
+        // given
+        CircuitBreaker breaker = new CircuitBreaker(3, COOL_DOWN);
+
+        // when
+        breaker.recordFailure(URL, 0);
+        breaker.recordFailure(URL, 0);
+        breaker.recordFailure(URL, 0);
+
+        // then
+        assertThat(breaker.getState(URL)).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(breaker.isOpen(URL, 0)).isTrue();
+        assertThat(breaker.allowRequest(URL, 0)).isFalse();
+        assertThat(breaker.getOpenCount()).isOne();
+    }
+
+    @Test
+    public void recordSuccess_ResetsConsecutiveFailures() {
+
+        // given
+        CircuitBreaker breaker = new CircuitBreaker(3, COOL_DOWN);
+        breaker.recordFailure(URL, 0);
+        breaker.recordFailure(URL, 0);
+
+        // when
+        breaker.recordSuccess(URL);
+        breaker.recordFailure(URL, 0);
+
+        // then
+        assertThat(breaker.getState(URL)).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    public void allowRequest_AfterCoolDown_AllowsSingleProbe() {
+
+        // given
+        CircuitBreaker breaker = new CircuitBreaker(1, COOL_DOWN);
+        breaker.recordFailure(URL, 0);
+
+        // when & then
+        assertThat(breaker.isOpen(URL, AFTER_COOL_DOWN)).isFalse();
+        assertThat(breaker.allowRequest(URL, AFTER_COOL_DOWN)).isTrue();
+        assertThat(breaker.getState(URL)).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        assertThat(breaker.isOpen(URL, AFTER_COOL_DOWN)).isTrue();
+        assertThat(breaker.allowRequest(URL, AFTER_COOL_DOWN)).isFalse();
+    }
+
+    @Test
+    public void allowRequest_OnLostProbe_AllowsAnotherProbeAfterCoolDown() {
+
+        // given
+        CircuitBreaker breaker = new CircuitBreaker(1, COOL_DOWN);
+        breaker.recordFailure(URL, 0);
+        breaker.allowRequest(URL, AFTER_COOL_DOWN);
+
+        // when & then
+        assertThat(breaker.isOpen(URL, 2 * AFTER_COOL_DOWN - 1)).isTrue();
+        assertThat(breaker.allowRequest(URL, 2 * AFTER_COOL_DOWN - 1)).isFalse();
+        assertThat(breaker.isOpen(URL, 2 * AFTER_COOL_DOWN)).isFalse();
+        assertThat(breaker.allowRequest(URL, 2 * AFTER_COOL_DOWN)).isTrue();
+        assertThat(breaker.getState(URL)).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        assertThat(breaker.allowRequest(URL, 2 * AFTER_COOL_DOWN)).isFalse();
+    }
+
+    @Test
+    public void recordSuccess_OnProbe_ClosesCircuit() {
+
+        // given
+        CircuitBreaker breaker = new CircuitBreaker(1, COOL_DOWN);
+        breaker.recordFailure(URL, 0);
+        breaker.allowRequest(URL, AFTER_COOL_DOWN);
+
+        // when
+        breaker.recordSuccess(URL);
+
+        // then
+        assertThat(breaker.getState(URL)).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(breaker.allowRequest(URL, AFTER_COOL_DOWN)).isTrue();
+        assertThat(breaker.getOpenCount()).isZero();
+    }
+
+    @Test
+    public void recordFailure_OnProbe_OpensCircuitForAnotherCoolDown() {
+
+        // given
+        CircuitBreaker breaker = new CircuitBreaker(3, COOL_DOWN);
+        breaker.recordFailure(URL, 0);
+        breaker.recordFailure(URL, 0);
+        breaker.recordFailure(URL, 0);
+        breaker.allowRequest(URL, AFTER_COOL_DOWN);
+
+        // when
+        breaker.recordFailure(URL, AFTER_COOL_DOWN);
+
+        // then
+        assertThat(breaker.getState(URL)).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(breaker.allowRequest(URL, AFTER_COOL_DOWN + 1)).isFalse();
+        assertThat(breaker.allowRequest(URL, 2 * AFTER_COOL_DOWN)).isTrue();
+    }
+
+    @Test
+    public void recordFailure_OnOtherWebhook_DoesNotAffectWebhook() {
+
+        // given
+        CircuitBreaker breaker = new CircuitBreaker(1, COOL_DOWN);
+
+        // when
+        breaker.recordFailure("https://other.webhook.office.com/456", 0);
+
+        // then
+        assertThat(breaker.allowRequest(URL, 0)).isTrue();
+    }
+
+    @Test
+    public void recordFailure_OnDisabledBreaker_KeepsCircuitClosed() {
+
+        // given
+        CircuitBreaker breaker = new CircuitBreaker(0, COOL_DOWN);
+
+        // when
+        breaker.recordFailure(URL, 0);
+
+        // then
+        assertThat(breaker.allowRequest(URL, 0)).isTrue();
+    }
+
+    @Test
+    public void isOpen_OnNullUrl_ReturnsFalse() {
+
+        // given
+        CircuitBreaker breaker = new CircuitBreaker(1, COOL_DOWN);
+
+        // when
+        breaker.recordFailure(null, 0);
+
+        // then
+        assertThat(breaker.isOpen(null, 0)).isFalse();
+        assertThat(breaker.allowRequest(null, 0)).isTrue();
+    }
+
+    @Test
+    public void recordFailure_OnThreshold_LogsHostWithoutSecret() {
+
+        // given
+        CircuitBreaker breaker = new CircuitBreaker(1, COOL_DOWN);
+        List<LogRecord> records = new CopyOnWriteArrayList<>();
+        Handler handler = new Handler() {
+            @Override
+            public void publish(LogRecord record) {
+                records.add(record);
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        Logger logger = Logger.getLogger(CircuitBreaker.class.getName());
+        logger.addHandler(handler);
+
+        try {
+            // when
+            breaker.recordFailure(URL, 0);
+            breaker.recordSuccess(URL);
+
+            // then
+            assertThat(records).hasSize(2);
+            assertThat(records).allSatisfy(record -> {
+                assertThat(record.getParameters()).contains("outlook.office.com");
+                assertThat(record.getParameters()).doesNotContain(URL);
+            });
+        } finally {
+            logger.removeHandler(handler);
+        }
+    }
+}
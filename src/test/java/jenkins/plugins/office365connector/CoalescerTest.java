@@ -0,0 +1,184 @@
+package jenkins.plugins.office365connector;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.verify;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import jenkins.plugins.office365connector.model.Card;
+import jenkins.plugins.office365connector.model.Fact;
+import jenkins.plugins.office365connector.model.Section;
+import org.apache.commons.lang.StringUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.MockedStatic;
+
+public class CoalescerTest {
+
+    private static final String URL = "http://localhost/webhook";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final Coalescer coalescer = new Coalescer();
+    private final PrintStream logger = new PrintStream(OutputStream.nullOutputStream());
+
+    @Test
+    public void merge_OnSingleCard_ReturnsSameCard() {
+
+        // given
+        Card card = createCard("first", "#00FF00");
+
+        // when
+        List<Card> digests = coalescer.merge(Collections.singletonList(card), 10, 1024 * 1024);
+
+        // then
+        assertThat(digests).containsExactly(card);
+    }
+
+    @Test
+    public void merge_OnManyCards_CreatesDigestWithSectionPerBuild() {
+
+        // given
+        Card first = createCard("first", "#00FF00");
+        Card second = createCard("second", "#00FF00");
+
+        // when
+        List<Card> digests = coalescer.merge(Arrays.asList(first, second), 10, 1024 * 1024);
+
+        // then
+        assertThat(digests).hasSize(1);
+        Card digest = digests.get(0);
+        assertThat(digest.getSummary()).isEqualTo("2 build notifications");
+        assertThat(digest.getThemeColor()).isEqualTo("#00FF00");
+        assertThat(digest.getSections()).containsExactly(first.getSections().get(0), second.getSections().get(0));
+    }
+
+    @Test
+    public void merge_OnDifferentColors_UsesDefaultColor() {
+
+        // given
+        Card first = createCard("first", "#00FF00");
+        Card second = createCard("second", "#FF0000");
+
+        // when
+        List<Card> digests = coalescer.merge(Arrays.asList(first, second), 10, 1024 * 1024);
+
+        // then
+        assertThat(digests.get(0).getThemeColor()).isEqualTo("3479BF");
+    }
+
+    @Test
+    public void merge_OnTooManySections_SplitsDigests() {
+
+        // given
+        List<Card> cards = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            cards.add(createCard("card" + i, "#00FF00"));
+        }
+
+        // when
+        List<Card> digests = coalescer.merge(cards, 2, 1024 * 1024);
+
+        // then
+        assertThat(digests).extracting(digest -> digest.getSections().size()).containsExactly(2, 2, 1);
+    }
+
+    @Test
+    public void merge_OnTooBigDigest_SplitsDigests() {
+
+        // given
+        String longValue = StringUtils.repeat("x", 500);
+        List<Card> cards = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            cards.add(createCard(longValue, "#00FF00"));
+        }
+
+        // when
+        List<Card> digests = coalescer.merge(cards, 10, 2500);
+
+        // then
+        assertThat(digests).hasSize(2);
+        assertThat(digests).extracting(digest -> digest.getSections().size()).containsExactly(2, 2);
+    }
+
+    @Test
+    public void add_OnCard_JournalsItBeforeFlush() throws IOException {
+
+        // given
+        File directory = folder.getRoot();
+        Outbox outbox = new Outbox(directory, 1024 * 1024);
+        try (MockedStatic<Outbox> outboxStatic = mockStatic(Outbox.class)) {
+            outboxStatic.when(Outbox::get).thenReturn(outbox);
+
+            // when
+            coalescer.add(URL, createWebhook(), createCard("first", "#00FF00"), logger);
+        } finally {
+            outbox.close();
+        }
+
+        // then
+        Outbox restarted = new Outbox(directory, 1024 * 1024);
+        try {
+            assertThat(restarted.recover()).extracting(entry -> entry.url).containsExactly(URL);
+        } finally {
+            restarted.close();
+        }
+    }
+
+    @Test
+    public void flush_OnJournaledCards_AcknowledgesThem() throws IOException {
+
+        // given
+        File directory = folder.getRoot();
+        Outbox outbox = new Outbox(directory, 1024 * 1024);
+        DeliveryQueue queue = mock(DeliveryQueue.class);
+        try (MockedStatic<Outbox> outboxStatic = mockStatic(Outbox.class);
+             MockedStatic<DeliveryQueue> queueStatic = mockStatic(DeliveryQueue.class)) {
+            outboxStatic.when(Outbox::get).thenReturn(outbox);
+            queueStatic.when(DeliveryQueue::get).thenReturn(queue);
+            coalescer.add(URL, createWebhook(), createCard("first", "#00FF00"), logger);
+            coalescer.add(URL, createWebhook(), createCard("second", "#00FF00"), logger);
+
+            // when
+            coalescer.flush(URL);
+        } finally {
+            outbox.close();
+        }
+
+        // then
+        verify(queue).enqueue(any(HttpWorker.class));
+        Outbox restarted = new Outbox(directory, 1024 * 1024);
+        try {
+            assertThat(restarted.recover()).isEmpty();
+        } finally {
+            restarted.close();
+        }
+    }
+
+    private static Webhook createWebhook() {
+        Webhook webhook = new Webhook(URL);
+        // window ends long after the test, the cards are flushed by the test itself
+        webhook.setCoalescingWindow(3600);
+        return webhook;
+    }
+
+    private static Card createCard(String value, String themeColor) {
+        Section section = new Section("Notification from " + value, "Latest status of build #1",
+                Collections.singletonList(new Fact("Status", value)));
+        Card card = new Card("myJob: " + value, section);
+        card.setThemeColor(themeColor);
+        return card;
+    }
+}
@@ -0,0 +1,173 @@
+package jenkins.plugins.office365connector;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import hudson.model.AbstractBuild;
+import hudson.model.AbstractProject;
+import hudson.model.Result;
+import hudson.model.User;
+import hudson.scm.ChangeLogSet;
+import jenkins.plugins.office365connector.helpers.AffectedFileBuilder;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.MockedStatic;
+
+public class CulpritAggregatorTest {
+
+    private AbstractProject job;
+
+    @Before
+    public void setUp() {
+        job = mock(AbstractProject.class);
+        when(job.getFullName()).thenReturn("myJob");
+        when(job.getProperty(WebhookJobProperty.class)).thenReturn(mock(WebhookJobProperty.class));
+    }
+
+    @Test
+    public void getCulprits_OnUnknownJob_ReturnsCulpritsComputedByJenkins() {
+
+        // given
+        CulpritAggregator aggregator = new CulpritAggregator(20);
+        AbstractBuild run = mockRun(1, Result.FAILURE, "Mike");
+        when(run.getCulpritIds()).thenReturn(Collections.singleton("ann"));
+        User user = createUser("Ann");
+
+        try (MockedStatic<User> staticUser = mockStatic(User.class)) {
+            staticUser.when(() -> User.getById("ann", false)).thenReturn(user);
+
+            // when & then
+            assertThat(aggregator.getCulprits(run)).containsExactly("Ann");
+        }
+    }
+
+    @Test
+    public void getCulprits_OnFailureStreak_CarriesAuthorsForward() {
+
+        // given
+        CulpritAggregator aggregator = new CulpritAggregator(20);
+        aggregator.record(mockRun(1, Result.SUCCESS));
+        aggregator.record(mockRun(2, Result.FAILURE, "Peter"));
+        aggregator.record(mockRun(3, Result.UNSTABLE, "Ann", "George"));
+        AbstractBuild run = mockRun(4, Result.FAILURE, "Peter");
+
+        // when
+        aggregator.record(run);
+
+        // then
+        assertThat(aggregator.getCulprits(run)).containsExactly("Ann", "George", "Peter");
+        verify(run, never()).getCulpritIds();
+    }
+
+    @Test
+    public void getCulprits_AfterSuccess_ReturnsOnlyNewAuthors() {
+
+        // given
+        CulpritAggregator aggregator = new CulpritAggregator(20);
+        aggregator.record(mockRun(1, Result.SUCCESS));
+        aggregator.record(mockRun(2, Result.FAILURE, "Peter"));
+        aggregator.record(mockRun(3, Result.SUCCESS, "Ann"));
+
+        // when
+        AbstractBuild run = mockRun(4, null, "George");
+
+        // then
+        assertThat(aggregator.getCulprits(run)).containsExactly("George");
+    }
+
+    @Test
+    public void getCulprits_OnRunningBuild_AddsAuthorsToPreviousCulprits() {
+
+        // given
+        CulpritAggregator aggregator = new CulpritAggregator(20);
+        aggregator.record(mockRun(1, Result.SUCCESS));
+        aggregator.record(mockRun(2, Result.FAILURE, "Peter"));
+
+        // when
+        AbstractBuild run = mockRun(3, null, "Ann");
+
+        // then
+        assertThat(aggregator.getCulprits(run)).containsExactly("Ann", "Peter");
+    }
+
+    @Test
+    public void getCulprits_OnLongStreak_KeepsOnlyLatestBuilds() {
+
+        // given
+        CulpritAggregator aggregator = new CulpritAggregator(2);
+        aggregator.record(mockRun(1, Result.SUCCESS));
+        aggregator.record(mockRun(2, Result.FAILURE, "Peter"));
+        aggregator.record(mockRun(3, Result.FAILURE, "Ann"));
+        AbstractBuild run = mockRun(4, Result.FAILURE, "George");
+
+        // when
+        aggregator.record(run);
+
+        // then
+        assertThat(aggregator.getCulprits(run)).containsExactly("Ann", "George");
+    }
+
+    @Test
+    public void record_OnJobWithoutWebhooks_SkipsBuild() {
+
+        // given
+        CulpritAggregator aggregator = new CulpritAggregator(20);
+        when(job.getProperty(WebhookJobProperty.class)).thenReturn(null);
+        aggregator.record(mockRun(1, Result.FAILURE, "Peter"));
+        AbstractBuild run = mockRun(2, Result.FAILURE, "Ann");
+
+        // when
+        aggregator.getCulprits(run);
+
+        // then
+        verify(run).getCulpritIds();
+    }
+
+    @Test
+    public void join_OnFewNames_ListsAllNames() {
+
+        // given
+        List<String> names = Arrays.asList("Ann", "George");
+
+        // when & then
+        assertThat(CulpritAggregator.join(names, 2)).isEqualTo("Ann, George");
+    }
+
+    @Test
+    public void join_OnManyNames_CountsRemainingNames() {
+
+        // given
+        List<String> names = Arrays.asList("Ann", "George", "Mike", "Peter");
+
+        // when & then
+        assertThat(CulpritAggregator.join(names, 2)).isEqualTo("Ann, George +2 more");
+    }
+
+    private AbstractBuild mockRun(int number, Result result, String... authors) {
+        AbstractBuild run = mock(AbstractBuild.class);
+        when(run.getParent()).thenReturn(job);
+        when(run.getNumber()).thenReturn(number);
+        when(run.getResult()).thenReturn(result);
+        List<ChangeLogSet> changeSets = new ArrayList<>();
+        for (String author : authors) {
+            changeSets.addAll(new AffectedFileBuilder().singleChangeLog(run, author));
+        }
+        when(run.getChangeSets()).thenReturn(changeSets);
+        return run;
+    }
+
+    private static User createUser(String fullName) {
+        User user = mock(User.class);
+        when(user.getFullName()).thenReturn(fullName);
+        return user;
+    }
+}
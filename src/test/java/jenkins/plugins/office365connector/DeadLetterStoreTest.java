@@ -0,0 +1,173 @@
+package jenkins.plugins.office365connector;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.MockedStatic;
+
+public class DeadLetterStoreTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File directory;
+
+    @Before
+    public void setUp() {
+        directory = new File(folder.getRoot(), "dead-letters");
+    }
+
+    @Test
+    public void add_StoresNotificationThatSurvivesRestart() {
+
+        // given
+        DeadLetterStore store = new DeadLetterStore(directory, 10);
+        store.add(createLetter("http://first.webhook"));
+
+        // when
+        DeadLetterStore restarted = new DeadLetterStore(directory, 10);
+
+        // then
+        List<DeadLetter> letters = restarted.getLetters();
+        assertThat(letters).hasSize(1);
+        DeadLetter letter = letters.get(0);
+        assertThat(letter.getId()).isEqualTo(1);
+        assertThat(letter.getUrl()).isEqualTo("http://first.webhook");
+        assertThat(letter.getPayload()).isEqualTo("{\"summary\":\"http://first.webhook\"}");
+        assertThat(letter.getTimeout()).isEqualTo(30000);
+        assertThat(letter.getMaxAttempts()).isEqualTo(3);
+        assertThat(letter.getLastStatusCode()).isEqualTo(503);
+        assertThat(letter.getAttempts()).hasSize(2);
+        assertThat(restarted.add(createLetter("http://second.webhook")).getId()).isEqualTo(2);
+    }
+
+    @Test
+    public void add_OnFullStore_RemovesOldestNotification() {
+
+        // given
+        DeadLetterStore store = new DeadLetterStore(directory, 2);
+        store.add(createLetter("http://first.webhook"));
+        store.add(createLetter("http://second.webhook"));
+
+        // when
+        store.add(createLetter("http://third.webhook"));
+
+        // then
+        assertThat(store.getLetters()).extracting(DeadLetter::getUrl)
+                .containsExactly("http://second.webhook", "http://third.webhook");
+        assertThat(directory.list()).containsExactlyInAnyOrder("2.xml", "3.xml");
+    }
+
+    @Test
+    public void add_OnDisabledStore_KeepsNothing() {
+
+        // given
+        DeadLetterStore store = new DeadLetterStore(directory, 0);
+        HttpWorker worker = new HttpWorker("http://first.webhook", new byte[0], 30000,
+                new ExponentialBackoffRetryPolicy(3, 60000), System.out);
+
+        // when
+        store.add(worker, Collections.emptyList());
+
+        // then
+        assertThat(store.getLetters()).isEmpty();
+    }
+
+    @Test
+    public void purge_RemovesSelectedNotifications() {
+
+        // given
+        DeadLetterStore store = new DeadLetterStore(directory, 10);
+        store.add(createLetter("http://first.webhook"));
+        store.add(createLetter("http://second.webhook"));
+
+        // when
+        int purged = store.purge(Collections.singletonList(1L));
+
+        // then
+        assertThat(purged).isOne();
+        assertThat(store.getLetters()).extracting(DeadLetter::getUrl).containsExactly("http://second.webhook");
+        assertThat(directory.list()).containsExactly("2.xml");
+    }
+
+    @Test
+    public void purge_OnNoIds_RemovesAllNotifications() {
+
+        // given
+        DeadLetterStore store = new DeadLetterStore(directory, 10);
+        store.add(createLetter("http://first.webhook"));
+        store.add(createLetter("http://second.webhook"));
+
+        // when
+        int purged = store.purge(Collections.emptyList());
+
+        // then
+        assertThat(purged).isEqualTo(2);
+        assertThat(store.getLetters()).isEmpty();
+    }
+
+    @Test
+    public void replay_PassesNotificationsToDeliveryQueue() {
+
+        // given
+        DeadLetterStore store = new DeadLetterStore(directory, 10);
+        store.add(createLetter("http://first.webhook"));
+        store.add(createLetter("http://second.webhook"));
+        DeliveryQueue queue = mock(DeliveryQueue.class);
+
+        try (MockedStatic<DeliveryQueue> queueStatic = mockStatic(DeliveryQueue.class)) {
+            queueStatic.when(DeliveryQueue::get).thenReturn(queue);
+
+            // when
+            int replayed = store.replay(Arrays.asList(1L, 2L));
+
+            // then
+            assertThat(replayed).isEqualTo(2);
+            verify(queue, times(2)).enqueue(any(HttpWorker.class));
+            assertThat(store.getLetters()).isEmpty();
+        }
+    }
+
+    @Test
+    public void replay_OnFullDeliveryQueue_KeepsNotification() {
+
+        // given
+        DeadLetterStore store = new DeadLetterStore(directory, 10);
+        store.add(createLetter("http://first.webhook"));
+        DeliveryQueue queue = mock(DeliveryQueue.class);
+        doThrow(new RejectedExecutionException()).when(queue).enqueue(any(HttpWorker.class));
+
+        try (MockedStatic<DeliveryQueue> queueStatic = mockStatic(DeliveryQueue.class)) {
+            queueStatic.when(DeliveryQueue::get).thenReturn(queue);
+
+            // when
+            int replayed = store.replay(Collections.emptyList());
+
+            // then
+            assertThat(replayed).isZero();
+            assertThat(store.getLetters()).extracting(DeadLetter::getUrl).containsExactly("http://first.webhook");
+        }
+    }
+
+    private static DeadLetter createLetter(String url) {
+        List<DeliveryFailure> attempts = Arrays.asList(
+                new DeliveryFailure(1000, "webhook", 0, "java.net.ConnectException: Connection refused"),
+                new DeliveryFailure(2000, "webhook", 503, "Service Unavailable"));
+        return new DeadLetter(0, 3000, url, "{\"summary\":\"" + url + "\"}", 30000, 3, 60000, attempts);
+    }
+}
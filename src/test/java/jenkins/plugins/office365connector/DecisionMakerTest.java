@@ -569,7 +569,7 @@ public class DecisionMakerTest extends AbstractTest {
             tokenMacroStatic.when(() -> TokenMacro.expandAll(any(), any(), any(), any())).thenThrow(new MacroEvaluationException("ups!"));
 
             // when & then
-            assertThatThrownBy(() -> MethodReflection.invokeWithCheckedThrows(decisionMaker.getClass(), decisionMaker, "evaluateMacro", new Class[]{String.class}, "anyTemplate"))
+            assertThatThrownBy(() -> MethodReflection.invokeWithCheckedThrows(decisionMaker.getClass(), decisionMaker, "evaluateMacro", new Class[]{String.class}, "${anyTemplate}"))
                     .isInstanceOf(IllegalArgumentException.class)
                     .hasCauseExactlyInstanceOf(MacroEvaluationException.class);
         }
@@ -0,0 +1,103 @@
+package jenkins.plugins.office365connector;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class DeliveryDashboardTest {
+
+    @Test
+    public void percentile_ReturnsNearestRank() {
+
+        // given
+        long[] values = {15, 20, 35, 40, 50};
+
+        // when
+        long p50 = DeliveryDashboard.percentile(values, 50);
+        long p95 = DeliveryDashboard.percentile(values, 95);
+
+        // then
+        assertThat(p50).isEqualTo(35);
+        assertThat(p95).isEqualTo(50);
+    }
+
+    @Test
+    public void percentile_OnNoValues_ReturnsZero() {
+
+        // given
+        long[] values = {};
+
+        // when
+        long percentile = DeliveryDashboard.percentile(values, 99);
+
+        // then
+        assertThat(percentile).isZero();
+    }
+
+    @Test
+    public void HostStatistics_ComputesPercentilesInMilliseconds() {
+
+        // given
+        List<Long> latencies = Arrays.asList(TimeUnit.MILLISECONDS.toNanos(300), TimeUnit.MILLISECONDS.toNanos(100),
+                TimeUnit.MILLISECONDS.toNanos(200));
+
+        // when
+        DeliveryDashboard.HostStatistics statistics = new DeliveryDashboard.HostStatistics("outlook.office.com", latencies);
+
+        // then
+        assertThat(statistics.getRequests()).isEqualTo(3);
+        assertThat(statistics.getP50()).isEqualTo(200);
+        assertThat(statistics.getP99()).isEqualTo(300);
+    }
+
+    @Test
+    public void getCounters_ReturnsValueOfEveryCounter() {
+
+        // given
+        Counter.OVERSIZED_CARDS.reset();
+        Counter.OVERSIZED_CARDS.increment();
+
+        // when
+        Map<String, Long> counters = new DeliveryDashboard().getCounters();
+
+        // then
+        assertThat(counters).hasSize(Counter.values().length);
+        assertThat(counters).containsEntry("oversized_cards", 1L);
+        Counter.OVERSIZED_CARDS.reset();
+    }
+
+    @Test
+    public void parseIds_ReturnsCommaSeparatedIds() {
+
+        // given
+        String ids = "3, 5,8";
+
+        // when
+        List<Long> parsed = DeliveryDashboard.parseIds(ids);
+
+        // then
+        assertThat(parsed).containsExactly(3L, 5L, 8L);
+    }
+
+    @Test
+    public void parseIds_OnBlankValue_ReturnsEmptyList() {
+
+        // when & then
+        assertThat(DeliveryDashboard.parseIds(null)).isEmpty();
+        assertThat(DeliveryDashboard.parseIds(" ")).isEmpty();
+    }
+
+    @Test
+    public void parseIds_OnInvalidValue_ThrowsException() {
+
+        // when & then
+        assertThatThrownBy(() -> DeliveryDashboard.parseIds("3,abc"))
+                .hasMessageContaining("abc");
+    }
+}
@@ -0,0 +1,93 @@
+package jenkins.plugins.office365connector;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.MetricSet;
+import com.codahale.metrics.Timer;
+import org.junit.After;
+import org.junit.Test;
+
+public class DeliveryMetricProviderTest {
+
+    @After
+    public void tearDown() {
+        DeliveryMetrics.get().setRecorder(null);
+        Counter.MACRO_CACHE_HITS.reset();
+    }
+
+    @Test
+    public void getMetricSet_ReturnsMetrics() {
+
+        // given
+        DeliveryMetricProvider provider = new DeliveryMetricProvider(new MetricRegistry());
+
+        // when
+        MetricSet metricSet = provider.getMetricSet();
+
+        // then
+        assertThat(metricSet.getMetrics()).containsKeys(
+                "office365connector.card.build",
+                "office365connector.http.roundtrip",
+                "office365connector.http.payload",
+                "office365connector.delivery.success",
+                "office365connector.delivery.failure",
+                "office365connector.delivery.retry",
+                "office365connector.delivery.drop",
+                "office365connector.queue.depth",
+                "office365connector.counter.skipped_url_expansions",
+                "office365connector.counter.oversized_cards");
+    }
+
+    @Test
+    public void getMetricSet_ReturnsValueOfCounter() {
+
+        // given
+        DeliveryMetricProvider provider = new DeliveryMetricProvider(new MetricRegistry());
+        Counter.MACRO_CACHE_HITS.reset();
+        Counter.MACRO_CACHE_HITS.increment();
+        Counter.MACRO_CACHE_HITS.increment();
+
+        // when
+        Gauge<?> gauge = (Gauge<?>) provider.getMetricSet().getMetrics().get("office365connector.counter.macro_cache_hits");
+
+        // then
+        assertThat(gauge.getValue()).isEqualTo(2L);
+    }
+
+    @Test
+    public void outcome_MarksMeterOfHost() {
+
+        // given
+        MetricRegistry hostMetrics = new MetricRegistry();
+        DeliveryMetricProvider provider = new DeliveryMetricProvider(hostMetrics);
+        provider.getMetricSet();
+
+        // when
+        DeliveryMetrics.get().record("https://outlook.office.com/webhook/secret", DeliveryMetrics.Outcome.SUCCESS);
+
+        // then
+        Meter meter = (Meter) provider.getMetricSet().getMetrics().get("office365connector.delivery.success");
+        assertThat(meter.getCount()).isEqualTo(1);
+        assertThat(hostMetrics.meter("office365connector.delivery.success.outlook.office.com").getCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void requestCompleted_UpdatesTimerOfHost() {
+
+        // given
+        MetricRegistry hostMetrics = new MetricRegistry();
+        DeliveryMetricProvider provider = new DeliveryMetricProvider(hostMetrics);
+
+        // when
+        provider.requestCompleted("outlook.office.com", 1024, 5_000_000);
+
+        // then
+        Timer timer = (Timer) provider.getMetricSet().getMetrics().get("office365connector.http.roundtrip");
+        assertThat(timer.getCount()).isEqualTo(1);
+        assertThat(hostMetrics.timer("office365connector.http.roundtrip.outlook.office.com").getCount()).isEqualTo(1);
+        assertThat(hostMetrics.histogram("office365connector.http.payload.outlook.office.com").getSnapshot().getMax()).isEqualTo(1024);
+    }
+}
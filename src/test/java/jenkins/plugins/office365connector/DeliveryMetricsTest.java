@@ -0,0 +1,126 @@
+package jenkins.plugins.office365connector;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import java.util.List;
+
+import org.apache.commons.lang.StringUtils;
+import org.junit.Test;
+
+public class DeliveryMetricsTest {
+
+    @Test
+    public void record_IncrementsCount() {
+
+        // given
+        DeliveryMetrics metrics = new DeliveryMetrics();
+
+        // when
+        metrics.record("https://outlook.office.com/webhook/secret", DeliveryMetrics.Outcome.RETRY);
+        metrics.record("https://outlook.office.com/webhook/secret", DeliveryMetrics.Outcome.RETRY);
+        metrics.record("https://outlook.office.com/webhook/secret", DeliveryMetrics.Outcome.SUCCESS);
+
+        // then
+        assertThat(metrics.getCount(DeliveryMetrics.Outcome.RETRY)).isEqualTo(2);
+        assertThat(metrics.getCount(DeliveryMetrics.Outcome.SUCCESS)).isEqualTo(1);
+        assertThat(metrics.getCount(DeliveryMetrics.Outcome.DROP)).isZero();
+    }
+
+    @Test
+    public void record_OnRecorder_PassesHost() {
+
+        // given
+        DeliveryMetrics metrics = new DeliveryMetrics();
+        DeliveryMetrics.Recorder recorder = mock(DeliveryMetrics.Recorder.class);
+        metrics.setRecorder(recorder);
+
+        // when
+        metrics.record("https://outlook.office.com/webhook/secret", DeliveryMetrics.Outcome.FAILURE);
+        metrics.requestCompleted("https://outlook.office.com/webhook/secret", 123, 456);
+        metrics.cardBuilt(789);
+
+        // then
+        verify(recorder).outcome("outlook.office.com", DeliveryMetrics.Outcome.FAILURE);
+        verify(recorder).requestCompleted("outlook.office.com", 123, 456);
+        verify(recorder).cardBuilt(789);
+    }
+
+    @Test
+    public void requestCompleted_OnMissingRecorder_SkipsRecording() {
+
+        // given
+        DeliveryMetrics metrics = new DeliveryMetrics();
+        DeliveryMetrics.Recorder recorder = mock(DeliveryMetrics.Recorder.class);
+        metrics.setRecorder(recorder);
+        metrics.setRecorder(null);
+
+        // when
+        metrics.requestCompleted("https://outlook.office.com/webhook/secret", 123, 456);
+
+        // then
+        verifyNoInteractions(recorder);
+    }
+
+    @Test
+    public void recordFailure_KeepsHostAndTruncatedResponse() {
+
+        // given
+        DeliveryMetrics metrics = new DeliveryMetrics();
+        String response = StringUtils.repeat("x", DeliveryMetrics.MAX_RESPONSE_LENGTH + 10);
+
+        // when
+        metrics.recordFailure("https://outlook.office.com/webhook/secret", 400, response);
+
+        // then
+        List<DeliveryFailure> failures = metrics.getRecentFailures();
+        assertThat(failures).hasSize(1);
+        assertThat(failures.get(0).getHost()).isEqualTo("outlook.office.com");
+        assertThat(failures.get(0).getStatusCode()).isEqualTo(400);
+        assertThat(failures.get(0).getResponse()).hasSize(DeliveryMetrics.MAX_RESPONSE_LENGTH);
+    }
+
+    @Test
+    public void notificationSent_CountsNotificationsOfJob() {
+
+        // given
+        DeliveryMetrics metrics = new DeliveryMetrics();
+
+        // when
+        metrics.notificationSent("folder/myJob");
+        metrics.notificationSent("folder/myJob");
+        metrics.notificationSent(null);
+
+        // then
+        assertThat(metrics.getSentByJob()).hasSize(1);
+        assertThat(metrics.getSentByJob().get("folder/myJob").sum()).isEqualTo(2);
+    }
+
+    @Test
+    public void getHost_OnInvalidUrl_ReturnsUnknown() {
+
+        // given
+        String url = "http://local host/ webhook";
+
+        // when
+        String host = DeliveryMetrics.getHost(url);
+
+        // then
+        assertThat(host).isEqualTo(DeliveryMetrics.UNKNOWN_HOST);
+    }
+
+    @Test
+    public void getHost_OnNullUrl_ReturnsUnknown() {
+
+        // given
+        String url = null;
+
+        // when
+        String host = DeliveryMetrics.getHost(url);
+
+        // then
+        assertThat(host).isEqualTo(DeliveryMetrics.UNKNOWN_HOST);
+    }
+}
@@ -0,0 +1,195 @@
+package jenkins.plugins.office365connector;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Test;
+
+public class DeliveryQueueTest {
+
+    private final CountDownLatch latch = new CountDownLatch(1);
+
+    private DeliveryQueue queue;
+
+    @After
+    public void tearDown() throws InterruptedException {
+        latch.countDown();
+        if (queue != null) {
+            queue.shutdown(1, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void get_ReturnsSameInstance() {
+
+        // given & when
+        DeliveryQueue first = DeliveryQueue.get();
+        DeliveryQueue second = DeliveryQueue.get();
+
+        // then
+        assertThat(first).isSameAs(second);
+    }
+
+    @Test
+    public void createVirtualThreadFactory_OnJava21_CreatesVirtualThreads() throws Exception {
+
+        // given
+        Assume.assumeTrue(Runtime.version().feature() >= 21);
+
+        // when
+        ThreadFactory threadFactory = DeliveryQueue.createVirtualThreadFactory();
+
+        // then
+        Thread thread = threadFactory.newThread(() -> {
+        });
+        assertThat((boolean) Thread.class.getMethod("isVirtual").invoke(thread)).isTrue();
+        assertThat(thread.getName()).startsWith("Office365Connector delivery");
+    }
+
+    @Test
+    public void createVirtualThreadFactory_OnOlderJava_ReturnsNull() {
+
+        // given
+        Assume.assumeTrue(Runtime.version().feature() < 19);
+
+        // when
+        ThreadFactory threadFactory = DeliveryQueue.createVirtualThreadFactory();
+
+        // then
+        assertThat(threadFactory).isNull();
+    }
+
+    @Test
+    public void submit_OnVirtualThreads_RunsWorker() {
+
+        // given
+        ThreadFactory threadFactory = DeliveryQueue.createVirtualThreadFactory();
+        Assume.assumeNotNull(threadFactory);
+        queue = new DeliveryQueue(10, 1, DeliveryQueue.RejectionPolicy.ABORT, threadFactory);
+        HttpWorker worker = mock(HttpWorker.class);
+
+        // when
+        queue.submit(worker);
+
+        // then
+        verify(worker, timeout(5000)).run();
+    }
+
+    @Test
+    public void submit_RunsWorker() {
+
+        // given
+        queue = new DeliveryQueue(1, 1, DeliveryQueue.RejectionPolicy.ABORT);
+        HttpWorker worker = mock(HttpWorker.class);
+
+        // when
+        queue.submit(worker);
+
+        // then
+        verify(worker, timeout(5000)).run();
+    }
+
+    @Test
+    public void submit_OnFullQueue_ThrowsException() {
+
+        // given
+        queue = new DeliveryQueue(1, 1, DeliveryQueue.RejectionPolicy.ABORT);
+        HttpWorker blockingWorker = mockBlockingWorker();
+        queue.submit(blockingWorker);
+        verify(blockingWorker, timeout(5000)).run();
+        queue.submit(mock(HttpWorker.class));
+
+        // when & then
+        assertThatThrownBy(() -> queue.submit(mock(HttpWorker.class)))
+                .isInstanceOf(RejectedExecutionException.class);
+        assertThat(queue.getQueueSize()).isEqualTo(1);
+        assertThat(queue.getActiveCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void submit_OnFullQueueAndCallerRunsPolicy_RunsWorkerInCallerThread() {
+
+        // given
+        queue = new DeliveryQueue(1, 1, DeliveryQueue.RejectionPolicy.CALLER_RUNS);
+        HttpWorker blockingWorker = mockBlockingWorker();
+        queue.submit(blockingWorker);
+        verify(blockingWorker, timeout(5000)).run();
+        queue.submit(mock(HttpWorker.class));
+        HttpWorker worker = mock(HttpWorker.class);
+
+        // when
+        queue.submit(worker);
+
+        // then
+        verify(worker).run();
+    }
+
+    @Test
+    public void submit_OnFullQueueAndDiscardOldestPolicy_GivesUpOldestWorker() {
+
+        // given
+        queue = new DeliveryQueue(1, 1, DeliveryQueue.RejectionPolicy.DISCARD_OLDEST);
+        HttpWorker blockingWorker = mockBlockingWorker();
+        queue.submit(blockingWorker);
+        verify(blockingWorker, timeout(5000)).run();
+        HttpWorker oldest = mock(HttpWorker.class);
+        queue.submit(oldest);
+        HttpWorker worker = mock(HttpWorker.class);
+
+        // when
+        queue.submit(worker);
+
+        // then
+        verify(oldest).discard();
+        latch.countDown();
+        verify(worker, timeout(5000)).run();
+        verify(oldest, never()).run();
+    }
+
+    @Test
+    public void fromString_OnUnknownName_ReturnsAbort() {
+
+        // given
+        String name = "unknown";
+
+        // when
+        DeliveryQueue.RejectionPolicy policy = DeliveryQueue.RejectionPolicy.fromString(name);
+
+        // then
+        assertThat(policy).isEqualTo(DeliveryQueue.RejectionPolicy.ABORT);
+    }
+
+    @Test
+    public void fromString_IgnoresCase() {
+
+        // given
+        String name = "caller_runs";
+
+        // when
+        DeliveryQueue.RejectionPolicy policy = DeliveryQueue.RejectionPolicy.fromString(name);
+
+        // then
+        assertThat(policy).isEqualTo(DeliveryQueue.RejectionPolicy.CALLER_RUNS);
+    }
+
+    private HttpWorker mockBlockingWorker() {
+        HttpWorker worker = mock(HttpWorker.class);
+        doAnswer(invocation -> {
+            latch.await();
+            return null;
+        }).when(worker).run();
+        return worker;
+    }
+}
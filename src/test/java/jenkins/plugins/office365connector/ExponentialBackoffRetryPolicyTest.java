@@ -0,0 +1,144 @@
+package jenkins.plugins.office365connector;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.TimeUnit;
+
+import jenkins.model.Jenkins;
+import org.junit.Test;
+import org.mockito.MockedStatic;
+
+public class ExponentialBackoffRetryPolicyTest {
+
+    @Test
+    public void isRetryable_OnTransientErrors_ReturnsTrue() {
+
+        // given
+        RetryPolicy policy = new ExponentialBackoffRetryPolicy(3, 1000);
+        int[] statusCodes = {408, 429, 500, 502, 503, 504};
+
+        for (int statusCode : statusCodes) {
+            // when
+            boolean retryable = policy.isRetryable(statusCode);
+
+            // then
+            assertThat(retryable).isTrue();
+        }
+    }
+
+    @Test
+    public void isRetryable_OnPermanentErrors_ReturnsFalse() {
+
+        // given
+        RetryPolicy policy = new ExponentialBackoffRetryPolicy(3, 1000);
+        int[] statusCodes = {400, 401, 403, 404, 413};
+
+        for (int statusCode : statusCodes) {
+            // when
+            boolean retryable = policy.isRetryable(statusCode);
+
+            // then
+            assertThat(retryable).isFalse();
+        }
+    }
+
+    @Test
+    public void getDelay_DoesNotExceedCeiling() {
+
+        // given
+        long maxDelay = 5000;
+        RetryPolicy policy = new ExponentialBackoffRetryPolicy(10, maxDelay);
+
+        for (int attempt = 1; attempt < 100; attempt++) {
+            // when
+            long delay = policy.getDelay(attempt, 0);
+
+            // then
+            assertThat(delay).isBetween(0L, Math.min(maxDelay, ExponentialBackoffRetryPolicy.BASE_DELAY << Math.min(attempt - 1, 20)));
+        }
+    }
+
+    @Test
+    public void getDelay_HonoursRetryAfter() {
+
+        // given
+        long retryAfter = 30000;
+        RetryPolicy policy = new ExponentialBackoffRetryPolicy(3, 60000);
+
+        // when
+        long delay = policy.getDelay(1, retryAfter);
+
+        // then
+        assertThat(delay).isEqualTo(retryAfter);
+    }
+
+    @Test
+    public void getDelay_OnTooLongRetryAfter_ReturnsMaxDelay() {
+
+        // given
+        long retryAfter = TimeUnit.DAYS.toMillis(3);
+        RetryPolicy policy = new ExponentialBackoffRetryPolicy(3, 60000);
+
+        // when
+        long delay = policy.getDelay(1, retryAfter);
+
+        // then
+        assertThat(delay).isEqualTo(60000);
+    }
+
+    @Test
+    public void of_OnWebhookConfiguration_UsesWebhookValues() {
+
+        // given
+        Webhook webhook = new Webhook("someUrl");
+        webhook.setMaxAttempts(7);
+        webhook.setMaxRetryDelay(1234);
+
+        // when
+        ExponentialBackoffRetryPolicy policy = ExponentialBackoffRetryPolicy.of(webhook);
+
+        // then
+        assertThat(policy.getMaxAttempts()).isEqualTo(7);
+        assertThat(policy.getMaxDelay()).isEqualTo(1234);
+    }
+
+    @Test
+    public void of_OnMissingConfiguration_UsesDefaults() {
+
+        // given
+        Webhook webhook = new Webhook("someUrl");
+
+        // when
+        ExponentialBackoffRetryPolicy policy = ExponentialBackoffRetryPolicy.of(webhook);
+
+        // then
+        assertThat(policy.getMaxAttempts()).isEqualTo(ExponentialBackoffRetryPolicy.DEFAULT_MAX_ATTEMPTS);
+        assertThat(policy.getMaxDelay()).isEqualTo(ExponentialBackoffRetryPolicy.DEFAULT_MAX_DELAY);
+    }
+
+    @Test
+    public void of_OnGlobalConfiguration_UsesGlobalValues() {
+
+        // given
+        Webhook webhook = new Webhook("someUrl");
+        Webhook.DescriptorImpl descriptor = mock(Webhook.DescriptorImpl.class);
+        when(descriptor.getGlobalMaxAttempts()).thenReturn(5);
+        when(descriptor.getGlobalMaxRetryDelay()).thenReturn(4321);
+        Jenkins jenkins = mock(Jenkins.class);
+        when(jenkins.getDescriptorByType(Webhook.DescriptorImpl.class)).thenReturn(descriptor);
+
+        try (MockedStatic<Jenkins> staticJenkins = mockStatic(Jenkins.class)) {
+            staticJenkins.when(Jenkins::getInstanceOrNull).thenReturn(jenkins);
+
+            // when
+            ExponentialBackoffRetryPolicy policy = ExponentialBackoffRetryPolicy.of(webhook);
+
+            // then
+            assertThat(policy.getMaxAttempts()).isEqualTo(5);
+            assertThat(policy.getMaxDelay()).isEqualTo(4321);
+        }
+    }
+}
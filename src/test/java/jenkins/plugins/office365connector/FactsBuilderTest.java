@@ -2,6 +2,7 @@ package jenkins.plugins.office365connector;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
 import static org.mockito.Mockito.when;
 
 import java.io.File;
@@ -23,6 +24,7 @@ import jenkins.plugins.office365connector.workflow.AbstractTest;
 import org.apache.commons.lang.StringUtils;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.MockedStatic;
 
 public class FactsBuilderTest extends AbstractTest {
 
@@ -95,13 +97,17 @@ public class FactsBuilderTest extends AbstractTest {
         FactsBuilder factBuilder = new FactsBuilder(run, taskListener);
         User one = createUser("damian");
         User two = createUser("365");
-        Set<User> users = new HashSet<>();
-        users.add(one);
-        users.add(two);
-        when(run.getCulprits()).thenReturn(users);
+        Set<String> ids = new HashSet<>();
+        ids.add("damian");
+        ids.add("365");
+        when(run.getCulpritIds()).thenReturn(ids);
 
         // when
-        factBuilder.addCommitters();
+        try (MockedStatic<User> staticUser = mockStatic(User.class)) {
+            staticUser.when(() -> User.getById("damian", false)).thenReturn(one);
+            staticUser.when(() -> User.getById("365", false)).thenReturn(two);
+            factBuilder.addCommitters();
+        }
 
         // then
         List<Fact> facts = factBuilder.collect();
@@ -0,0 +1,432 @@
+package jenkins.plugins.office365connector;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import com.sun.net.httpserver.HttpServer;
+import jenkins.model.Jenkins;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.utils.DateUtils;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.message.BasicHttpResponse;
+import org.junit.Test;
+import org.mockito.MockedStatic;
+
+public class HttpWorkerTest {
+
+    @Test
+    public void getRetryAfter_OnMissingHeader_ReturnsZero() {
+
+        // given
+        HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 429, "Too Many Requests");
+
+        // when
+        long retryAfter = HttpWorker.getRetryAfter(response);
+
+        // then
+        assertThat(retryAfter).isZero();
+    }
+
+    @Test
+    public void getRetryAfter_OnSeconds_ReturnsMilliseconds() {
+
+        // given
+        HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 429, "Too Many Requests");
+        response.addHeader(HttpHeaders.RETRY_AFTER, "12");
+
+        // when
+        long retryAfter = HttpWorker.getRetryAfter(response);
+
+        // then
+        assertThat(retryAfter).isEqualTo(12000);
+    }
+
+    @Test
+    public void getRetryAfter_OnDate_ReturnsDelay() {
+
+        // given
+        HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, HttpStatus.SC_SERVICE_UNAVAILABLE, "Unavailable");
+        response.addHeader(HttpHeaders.RETRY_AFTER, DateUtils.formatDate(new Date(System.currentTimeMillis() + 60000)));
+
+        // when
+        long retryAfter = HttpWorker.getRetryAfter(response);
+
+        // then
+        assertThat(retryAfter).isBetween(50000L, 60000L);
+    }
+
+    @Test
+    public void getRetryAfter_OnInvalidValue_ReturnsZero() {
+
+        // given
+        HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 429, "Too Many Requests");
+        response.addHeader(HttpHeaders.RETRY_AFTER, "soon");
+
+        // when
+        long retryAfter = HttpWorker.getRetryAfter(response);
+
+        // then
+        assertThat(retryAfter).isZero();
+    }
+
+    @Test
+    public void getRetryAfter_OnMissingValue_ReturnsZero() {
+
+        // given
+        String header = null;
+
+        // when
+        long retryAfter = HttpWorker.getRetryAfter(header);
+
+        // then
+        assertThat(retryAfter).isZero();
+    }
+
+    @Test
+    public void run_OnAsyncTransport_DeliversNotification() throws Exception {
+
+        // given
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        List<String> received = new CopyOnWriteArrayList<>();
+        server.createContext("/webhook", exchange -> {
+            received.add(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            exchange.sendResponseHeaders(HttpStatus.SC_OK, -1);
+            exchange.close();
+        });
+        server.start();
+
+        Webhook.DescriptorImpl descriptor = mock(Webhook.DescriptorImpl.class);
+        when(descriptor.getTransport()).thenReturn(Transport.ASYNC);
+        when(descriptor.getGlobalRateLimit()).thenReturn(0);
+        Jenkins jenkins = mock(Jenkins.class);
+        when(jenkins.getDescriptorByType(Webhook.DescriptorImpl.class)).thenReturn(descriptor);
+        long delivered = DeliveryMetrics.get().getCount(DeliveryMetrics.Outcome.SUCCESS);
+
+        try (MockedStatic<Jenkins> staticJenkins = mockStatic(Jenkins.class)) {
+            staticJenkins.when(Jenkins::getInstanceOrNull).thenReturn(jenkins);
+            String url = "http://localhost:" + server.getAddress().getPort() + "/webhook";
+            HttpWorker worker = new HttpWorker(url, "{}".getBytes(StandardCharsets.UTF_8), 5000,
+                    new ExponentialBackoffRetryPolicy(1, 0), mock(PrintStream.class));
+
+            // when
+            worker.run();
+
+            // then
+            long deadline = System.currentTimeMillis() + 5000;
+            while (DeliveryMetrics.get().getCount(DeliveryMetrics.Outcome.SUCCESS) == delivered
+                    && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertThat(received).containsExactly("{}");
+            assertThat(DeliveryMetrics.get().getCount(DeliveryMetrics.Outcome.SUCCESS)).isGreaterThan(delivered);
+        } finally {
+            server.stop(0);
+            SharedAsyncHttpClient.close();
+        }
+    }
+
+    @Test
+    public void run_OnErrorWhileHandlingAsyncResponse_GivesUp() throws Exception {
+
+        // given
+        List<Long> requests = new CopyOnWriteArrayList<>();
+        HttpServer server = startWebhook(requests, null, HttpStatus.SC_SERVICE_UNAVAILABLE);
+        String url = getUrl(server);
+        // created before Jenkins is mocked, so it is kept only in the memory
+        DeadLetterStore store = DeadLetterStore.get();
+
+        Webhook.DescriptorImpl descriptor = mock(Webhook.DescriptorImpl.class);
+        when(descriptor.getTransport()).thenReturn(Transport.ASYNC);
+        when(descriptor.getGlobalRateLimit()).thenReturn(0);
+        Jenkins jenkins = mock(Jenkins.class);
+        when(jenkins.getDescriptorByType(Webhook.DescriptorImpl.class)).thenReturn(descriptor);
+        // the response is logged first, which fails on the thread of the client
+        PrintStream logger = mock(PrintStream.class);
+        doThrow(new IllegalStateException("Build log is closed")).doNothing().when(logger).println(anyString());
+
+        try (MockedStatic<Jenkins> staticJenkins = mockStatic(Jenkins.class)) {
+            staticJenkins.when(Jenkins::getInstanceOrNull).thenReturn(jenkins);
+            HttpWorker worker = new HttpWorker(url, "{}".getBytes(StandardCharsets.UTF_8), 5000,
+                    new ExponentialBackoffRetryPolicy(3, 0), logger);
+
+            // when
+            worker.run();
+
+            // then
+            await(() -> store.getLetters().stream().anyMatch(letter -> url.equals(letter.getUrl())));
+            assertThat(store.getLetters()).extracting(DeadLetter::getUrl).contains(url);
+            assertThat(requests).hasSize(1);
+        } finally {
+            server.stop(0);
+            SharedAsyncHttpClient.close();
+            store.purge(Collections.emptyList());
+        }
+    }
+
+    @Test
+    public void run_OnMalformedUrl_GivesUp() {
+
+        // given
+        HttpWorker worker = new HttpWorker("http://localhost/malformed webhook", "{}".getBytes(StandardCharsets.UTF_8), 5000,
+                new ExponentialBackoffRetryPolicy(3, 0), mock(PrintStream.class));
+        long failed = DeliveryMetrics.get().getCount(DeliveryMetrics.Outcome.FAILURE);
+
+        // when
+        worker.run();
+
+        // then
+        assertThat(DeliveryMetrics.get().getCount(DeliveryMetrics.Outcome.FAILURE)).isEqualTo(failed + 1);
+    }
+
+    @Test
+    public void run_OnConnectionPoolTimeout_RetriesWithoutFailureOfWebhook() throws Exception {
+
+        // given
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        List<String> received = new CopyOnWriteArrayList<>();
+        server.createContext("/webhook", exchange -> {
+            received.add(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            exchange.sendResponseHeaders(HttpStatus.SC_OK, -1);
+            exchange.close();
+        });
+        server.start();
+
+        CloseableHttpClient client = mock(CloseableHttpClient.class);
+        when(client.execute(any(HttpUriRequest.class))).thenThrow(new ConnectionPoolTimeoutException("Timeout waiting for connection"));
+        long failed = DeliveryMetrics.get().getCount(DeliveryMetrics.Outcome.FAILURE);
+
+        // static mock applies only to this thread, the repeated request uses the real client
+        try (MockedStatic<SharedHttpClient> staticClient = mockStatic(SharedHttpClient.class)) {
+            staticClient.when(SharedHttpClient::get).thenReturn(client);
+            String url = "http://localhost:" + server.getAddress().getPort() + "/webhook";
+            HttpWorker worker = new HttpWorker(url, "{}".getBytes(StandardCharsets.UTF_8), 5000,
+                    new ExponentialBackoffRetryPolicy(2, 0), mock(PrintStream.class));
+
+            // when
+            worker.run();
+
+            // then
+            long deadline = System.currentTimeMillis() + 5000;
+            while (received.isEmpty() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertThat(received).containsExactly("{}");
+            assertThat(CircuitBreaker.get().getState(url)).isEqualTo(CircuitBreaker.State.CLOSED);
+            assertThat(DeliveryMetrics.get().getCount(DeliveryMetrics.Outcome.FAILURE)).isEqualTo(failed);
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void run_OnClientError_DoesNotRetry() throws Exception {
+
+        // given
+        List<Long> requests = new CopyOnWriteArrayList<>();
+        HttpServer server = startWebhook(requests, null, HttpStatus.SC_BAD_REQUEST);
+        long failed = DeliveryMetrics.get().getCount(DeliveryMetrics.Outcome.FAILURE);
+        long retried = DeliveryMetrics.get().getCount(DeliveryMetrics.Outcome.RETRY);
+
+        try {
+            HttpWorker worker = new HttpWorker(getUrl(server), "{}".getBytes(StandardCharsets.UTF_8), 5000,
+                    new ExponentialBackoffRetryPolicy(3, 0), mock(PrintStream.class));
+
+            // when
+            worker.run();
+
+            // then
+            await(() -> DeliveryMetrics.get().getCount(DeliveryMetrics.Outcome.FAILURE) > failed);
+            assertThat(requests).hasSize(1);
+            assertThat(DeliveryMetrics.get().getCount(DeliveryMetrics.Outcome.RETRY)).isEqualTo(retried);
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void run_OnTooManyRequests_RetriesAfterRequestedDelay() throws Exception {
+
+        // given
+        List<Long> requests = new CopyOnWriteArrayList<>();
+        HttpServer server = startWebhook(requests, "1", 429, HttpStatus.SC_OK);
+        long delivered = DeliveryMetrics.get().getCount(DeliveryMetrics.Outcome.SUCCESS);
+
+        try {
+            HttpWorker worker = new HttpWorker(getUrl(server), "{}".getBytes(StandardCharsets.UTF_8), 5000,
+                    new ExponentialBackoffRetryPolicy(3, 0), mock(PrintStream.class));
+
+            // when
+            worker.run();
+
+            // then
+            await(() -> DeliveryMetrics.get().getCount(DeliveryMetrics.Outcome.SUCCESS) > delivered);
+            assertThat(requests).hasSize(2);
+            assertThat(TimeUnit.NANOSECONDS.toMillis(requests.get(1) - requests.get(0))).isGreaterThanOrEqualTo(900);
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void run_OnServerError_RetriesAndGivesUpAfterMaxAttempts() throws Exception {
+
+        // given
+        List<Long> requests = new CopyOnWriteArrayList<>();
+        HttpServer server = startWebhook(requests, null, HttpStatus.SC_SERVICE_UNAVAILABLE);
+        String url = getUrl(server);
+
+        try {
+            HttpWorker worker = new HttpWorker(url, "{}".getBytes(StandardCharsets.UTF_8), 5000,
+                    new ExponentialBackoffRetryPolicy(2, 0), mock(PrintStream.class));
+
+            // when
+            worker.run();
+
+            // then
+            await(() -> DeadLetterStore.get().getLetters().stream().anyMatch(letter -> url.equals(letter.getUrl())));
+            assertThat(requests).hasSize(2);
+            DeadLetter letter = DeadLetterStore.get().getLetters().stream()
+                    .filter(stored -> url.equals(stored.getUrl())).findFirst().get();
+            assertThat(letter.getAttempts()).hasSize(2);
+            assertThat(letter.getLastStatusCode()).isEqualTo(HttpStatus.SC_SERVICE_UNAVAILABLE);
+        } finally {
+            server.stop(0);
+            DeadLetterStore.get().purge(Collections.emptyList());
+        }
+    }
+
+    @Test
+    public void run_OnOpenCircuit_KeepsNotificationAsDeadLetter() {
+
+        // given
+        String url = "http://localhost/failing-webhook";
+        for (int i = 0; i < CircuitBreaker.FAILURE_THRESHOLD; i++) {
+            CircuitBreaker.get().recordFailure(url);
+        }
+        HttpWorker worker = new HttpWorker(url, "{}".getBytes(StandardCharsets.UTF_8), 5000,
+                new ExponentialBackoffRetryPolicy(3, 0), mock(PrintStream.class));
+
+        try {
+            // when
+            worker.run();
+
+            // then
+            assertThat(DeadLetterStore.get().getLetters()).extracting(DeadLetter::getUrl).contains(url);
+        } finally {
+            CircuitBreaker.get().recordSuccess(url);
+            DeadLetterStore.get().purge(Collections.emptyList());
+        }
+    }
+
+    @Test
+    public void run_OnUnsupportedCompressedRequest_SendsItUncompressedWithoutUsingAttempt() throws Exception {
+
+        // given
+        List<String> encodings = new CopyOnWriteArrayList<>();
+        HttpServer server = startWebhook(new CopyOnWriteArrayList<>(), encodings, null,
+                HttpStatus.SC_UNSUPPORTED_MEDIA_TYPE, HttpStatus.SC_SERVICE_UNAVAILABLE, HttpStatus.SC_OK);
+        long delivered = DeliveryMetrics.get().getCount(DeliveryMetrics.Outcome.SUCCESS);
+
+        try {
+            // second attempt is allowed only when the uncompressed request has not used up the first one
+            HttpWorker worker = new HttpWorker(getUrl(server), "{}".getBytes(StandardCharsets.UTF_8), 5000,
+                    new ExponentialBackoffRetryPolicy(2, 0), mock(PrintStream.class));
+            worker.setCompressed(true);
+
+            // when
+            worker.run();
+
+            // then
+            await(() -> DeliveryMetrics.get().getCount(DeliveryMetrics.Outcome.SUCCESS) > delivered);
+            assertThat(encodings).containsExactly("gzip", "none", "none");
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void run_OnUnsupportedUncompressedRequest_DoesNotRetry() throws Exception {
+
+        // given
+        List<Long> requests = new CopyOnWriteArrayList<>();
+        HttpServer server = startWebhook(requests, null, HttpStatus.SC_UNSUPPORTED_MEDIA_TYPE, HttpStatus.SC_OK);
+        long failed = DeliveryMetrics.get().getCount(DeliveryMetrics.Outcome.FAILURE);
+
+        try {
+            HttpWorker worker = new HttpWorker(getUrl(server), "{}".getBytes(StandardCharsets.UTF_8), 5000,
+                    new ExponentialBackoffRetryPolicy(3, 0), mock(PrintStream.class));
+            worker.setCompressed(false);
+
+            // when
+            worker.run();
+
+            // then
+            await(() -> DeliveryMetrics.get().getCount(DeliveryMetrics.Outcome.FAILURE) > failed);
+            assertThat(requests).hasSize(1);
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    private static HttpServer startWebhook(List<Long> requests, String retryAfter, int... statusCodes) throws IOException {
+        return startWebhook(requests, new CopyOnWriteArrayList<>(), retryAfter, statusCodes);
+    }
+
+    /**
+     * Starts the webhook that responds with passed status codes, the last one is repeated for all following requests.
+     * Time and content encoding (<code>none</code> when not set) of every request are added to passed lists.
+     */
+    private static HttpServer startWebhook(List<Long> requests, List<String> encodings, String retryAfter,
+                                           int... statusCodes) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/webhook", exchange -> {
+            String encoding = exchange.getRequestHeaders().getFirst(HttpHeaders.CONTENT_ENCODING);
+            encodings.add(encoding != null ? encoding : "none");
+            requests.add(System.nanoTime());
+            exchange.getRequestBody().readAllBytes();
+            int statusCode = statusCodes[Math.min(requests.size(), statusCodes.length) - 1];
+            if (retryAfter != null && statusCode != HttpStatus.SC_OK) {
+                exchange.getResponseHeaders().add(HttpHeaders.RETRY_AFTER, retryAfter);
+            }
+            byte[] body = String.valueOf(statusCode).getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(statusCode, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+        return server;
+    }
+
+    private static String getUrl(HttpServer server) {
+        return "http://localhost:" + server.getAddress().getPort() + "/webhook";
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+}
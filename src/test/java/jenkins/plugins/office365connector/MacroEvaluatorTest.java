@@ -0,0 +1,80 @@
+package jenkins.plugins.office365connector;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+
+import hudson.FilePath;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import org.jenkinsci.plugins.tokenmacro.MacroEvaluationException;
+import org.jenkinsci.plugins.tokenmacro.TokenMacro;
+import org.junit.Test;
+import org.mockito.MockedStatic;
+
+public class MacroEvaluatorTest {
+
+    private final Run run = mock(Run.class);
+    private final TaskListener taskListener = mock(TaskListener.class);
+
+    @Test
+    public void evaluate_OnSameTemplate_EvaluatesOnce() {
+
+        // given
+        MacroEvaluator macroEvaluator = new MacroEvaluator(run, taskListener);
+        String template = "${BUILD_NUMBER}";
+        long hits = Counter.MACRO_CACHE_HITS.get();
+
+        try (MockedStatic<TokenMacro> tokenMacroStatic = mockStatic(TokenMacro.class); MockedStatic<FilePath> ignored = mockStatic(FilePath.class)) {
+            tokenMacroStatic.when(() -> TokenMacro.expandAll(any(), any(), any(), eq(template))).thenReturn("7");
+
+            // when
+            String first = macroEvaluator.evaluate(template);
+            String second = macroEvaluator.evaluate(template);
+
+            // then
+            assertThat(first).isEqualTo("7");
+            assertThat(second).isEqualTo("7");
+            tokenMacroStatic.verify(() -> TokenMacro.expandAll(any(), any(), any(), eq(template)), times(1));
+            assertThat(Counter.MACRO_CACHE_HITS.get()).isGreaterThan(hits);
+        }
+    }
+
+    @Test
+    public void evaluate_OnTemplateWithoutMacro_SkipsTokenMacro() {
+
+        // given
+        MacroEvaluator macroEvaluator = new MacroEvaluator(run, taskListener);
+        String template = "plain text";
+
+        try (MockedStatic<TokenMacro> tokenMacroStatic = mockStatic(TokenMacro.class)) {
+            // when
+            String value = macroEvaluator.evaluate(template);
+
+            // then
+            assertThat(value).isEqualTo(template);
+            tokenMacroStatic.verify(() -> TokenMacro.expandAll(any(), any(), any(), any()), never());
+        }
+    }
+
+    @Test
+    public void evaluate_OnInvalidMacro_ThrowsException() {
+
+        // given
+        MacroEvaluator macroEvaluator = new MacroEvaluator(run, taskListener);
+
+        try (MockedStatic<TokenMacro> tokenMacroStatic = mockStatic(TokenMacro.class); MockedStatic<FilePath> ignored = mockStatic(FilePath.class)) {
+            tokenMacroStatic.when(() -> TokenMacro.expandAll(any(), any(), any(), any())).thenThrow(new MacroEvaluationException("ups!"));
+
+            // when & then
+            assertThatThrownBy(() -> macroEvaluator.evaluate("${UNKNOWN}"))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasCauseExactlyInstanceOf(MacroEvaluationException.class);
+        }
+    }
+}
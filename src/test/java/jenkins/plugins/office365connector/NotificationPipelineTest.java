@@ -0,0 +1,161 @@
+package jenkins.plugins.office365connector;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockConstruction;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+import java.io.PrintStream;
+import java.lang.reflect.Field;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import jenkins.plugins.office365connector.workflow.AbstractTest;
+import org.junit.After;
+import org.junit.Test;
+import org.mockito.MockedConstruction;
+
+public class NotificationPipelineTest {
+
+    private final CountDownLatch latch = new CountDownLatch(1);
+
+    private NotificationPipeline pipeline;
+
+    @After
+    public void tearDown() throws InterruptedException {
+        latch.countDown();
+        if (pipeline != null) {
+            pipeline.shutdown(1, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void submit_CreatesNotifierInCallerThread() {
+
+        // given
+        pipeline = new NotificationPipeline(1, 1);
+        Run run = mock(Run.class);
+        TaskListener listener = AbstractTest.mockListener();
+
+        try (MockedConstruction<Office365ConnectorWebhookNotifier> notifierConstruction = mockConstruction(Office365ConnectorWebhookNotifier.class)) {
+            // when
+            pipeline.submit(run, listener, notifier -> awaitLatch());
+
+            // then
+            assertThat(notifierConstruction.constructed()).hasSize(1);
+        }
+    }
+
+    @Test
+    public void submit_SendsNotificationInBackground() {
+
+        // given
+        pipeline = new NotificationPipeline(1, 1);
+        Run run = mock(Run.class);
+        TaskListener listener = AbstractTest.mockListener();
+
+        try (MockedConstruction<Office365ConnectorWebhookNotifier> notifierConstruction = mockConstruction(Office365ConnectorWebhookNotifier.class)) {
+            // when
+            pipeline.submit(run, listener, Office365ConnectorWebhookNotifier::sendBuildCompletedNotification);
+
+            // then
+            verify(notifierConstruction.constructed().get(0), timeout(5000)).sendBuildCompletedNotification();
+        }
+    }
+
+    @Test
+    public void submit_OnFullQueue_SendsNotificationInCallerThread() {
+
+        // given
+        pipeline = new NotificationPipeline(1, 1);
+        Run run = mock(Run.class);
+        TaskListener listener = AbstractTest.mockListener();
+        Thread caller = Thread.currentThread();
+        Thread[] executor = new Thread[1];
+
+        try (MockedConstruction<Office365ConnectorWebhookNotifier> ignored = mockConstruction(Office365ConnectorWebhookNotifier.class)) {
+            pipeline.submit(run, listener, notifier -> awaitLatch());
+            pipeline.submit(run, listener, notifier -> awaitLatch());
+
+            // when
+            pipeline.submit(run, listener, notifier -> executor[0] = Thread.currentThread());
+
+            // then
+            assertThat(executor[0]).isSameAs(caller);
+        }
+    }
+
+    @Test
+    public void getLogger_OnRunningBuild_WritesToBuildLog() throws Exception {
+
+        // given
+        Run run = mockRun("BUILDING");
+        TaskListener listener = AbstractTest.mockListener();
+        PrintStream buildLog = listener.getLogger();
+        TaskListener buildLogListener = new NotificationPipeline.BuildLogListener(run, listener);
+
+        // when
+        buildLogListener.getLogger().println("myMessage");
+
+        // then
+        verify(buildLog).println("myMessage");
+    }
+
+    @Test
+    public void getLogger_OnBuildInPostProduction_WritesToBuildLog() throws Exception {
+
+        // given
+        Run run = mockRun("POST_PRODUCTION");
+        TaskListener listener = AbstractTest.mockListener();
+        PrintStream buildLog = listener.getLogger();
+        TaskListener buildLogListener = new NotificationPipeline.BuildLogListener(run, listener);
+
+        // when
+        buildLogListener.getLogger().println("myMessage");
+
+        // then
+        assertThat(run.isBuilding()).isFalse();
+        verify(buildLog).println("myMessage");
+    }
+
+    @Test
+    public void getLogger_OnCompletedBuild_SkipsBuildLog() throws Exception {
+
+        // given
+        Run run = mockRun("COMPLETED");
+        TaskListener listener = AbstractTest.mockListener();
+        PrintStream buildLog = listener.getLogger();
+        TaskListener buildLogListener = new NotificationPipeline.BuildLogListener(run, listener);
+
+        // when
+        buildLogListener.getLogger().println("myMessage");
+
+        // then
+        verify(buildLog, never()).println("myMessage");
+    }
+
+    /**
+     * Creates the run that is in passed state, so the real methods of {@link Run} tell what phase of the build it is.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Run mockRun(String state) throws ReflectiveOperationException {
+        Run run = mock(Run.class, CALLS_REAL_METHODS);
+        Field field = Run.class.getDeclaredField("state");
+        field.setAccessible(true);
+        field.set(run, Enum.valueOf((Class<Enum>) Class.forName("hudson.model.Run$State"), state));
+        return run;
+    }
+
+    private void awaitLatch() {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package jenkins.plugins.office365connector;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class OutboxTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File directory;
+    private Outbox outbox;
+
+    @Before
+    public void setUp() {
+        directory = new File(folder.getRoot(), "outbox");
+    }
+
+    @After
+    public void tearDown() {
+        if (outbox != null) {
+            outbox.close();
+        }
+    }
+
+    @Test
+    public void recover_ReturnsNotAcknowledgedEntries() throws IOException {
+
+        // given
+        outbox = new Outbox(directory, 1024 * 1024);
+        long delivered = outbox.append(createEntry("http://delivered"));
+        outbox.append(createEntry("http://pending"));
+        outbox.acknowledge(delivered);
+        outbox.close();
+
+        // when
+        outbox = new Outbox(directory, 1024 * 1024);
+        List<Outbox.Entry> entries = outbox.recover();
+
+        // then
+        assertThat(entries).hasSize(1);
+        Outbox.Entry entry = entries.get(0);
+        assertThat(entry.url).isEqualTo("http://pending");
+        assertThat(new String(entry.data, StandardCharsets.UTF_8)).isEqualTo("{\"summary\":\"http://pending\"}");
+        assertThat(entry.timeout).isEqualTo(30000);
+        assertThat(entry.maxAttempts).isEqualTo(3);
+        assertThat(entry.maxDelay).isEqualTo(60000);
+    }
+
+    @Test
+    public void recover_ReplacesOldSegments() throws IOException {
+
+        // given
+        outbox = new Outbox(directory, 1024 * 1024);
+        outbox.append(createEntry("http://pending"));
+        outbox.close();
+        outbox = new Outbox(directory, 1024 * 1024);
+        List<Outbox.Entry> entries = outbox.recover();
+
+        // when
+        outbox.acknowledge(entries.get(0).id);
+        outbox.close();
+        outbox = new Outbox(directory, 1024 * 1024);
+
+        // then
+        assertThat(outbox.recover()).isEmpty();
+    }
+
+    @Test
+    public void acknowledge_OnFullSegment_DeletesSegment() throws IOException {
+
+        // given
+        outbox = new Outbox(directory, 1);
+        long first = outbox.append(createEntry("http://first"));
+        outbox.append(createEntry("http://second"));
+        assertThat(directory.list()).hasSize(2);
+
+        // when
+        outbox.acknowledge(first);
+
+        // then
+        assertThat(directory.list()).containsExactly("segment-1.log");
+    }
+
+    @Test
+    public void recover_OnDamagedRecord_SkipsIt() throws IOException {
+
+        // given
+        outbox = new Outbox(directory, 1024 * 1024);
+        outbox.append(createEntry("http://complete"));
+        outbox.append(createEntry("http://damaged"));
+        outbox.close();
+        File segment = new File(directory, "segment-0.log");
+        try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+            // simulate record that was written partially
+            file.setLength(file.length() - 5);
+        }
+
+        // when
+        outbox = new Outbox(directory, 1024 * 1024);
+        List<Outbox.Entry> entries = outbox.recover();
+
+        // then
+        assertThat(entries).extracting(entry -> entry.url).containsExactly("http://complete");
+    }
+
+    private static Outbox.Entry createEntry(String url) {
+        byte[] data = ("{\"summary\":\"" + url + "\"}").getBytes(StandardCharsets.UTF_8);
+        return new Outbox.Entry(0, url, data, 30000, 3, 60000);
+    }
+}
@@ -0,0 +1,96 @@
+package jenkins.plugins.office365connector;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class RateLimiterTest {
+
+    private static final String URL = "http://localhost/webhook";
+    private static final int RATE_LIMIT = 60;
+    private static final long INTERVAL = TimeUnit.SECONDS.toNanos(1);
+
+    private final RateLimiter rateLimiter = new RateLimiter();
+
+    @Test
+    public void reserve_OnBurst_DoesNotWait() {
+
+        // given
+        long now = 0;
+
+        for (int i = 0; i < RateLimiter.BURST; i++) {
+            // when
+            long wait = rateLimiter.reserve(URL, RATE_LIMIT, now);
+
+            // then
+            assertThat(wait).isZero();
+        }
+    }
+
+    @Test
+    public void reserve_OverBurst_PacesRequests() {
+
+        // given
+        long now = 0;
+        for (int i = 0; i < RateLimiter.BURST; i++) {
+            rateLimiter.reserve(URL, RATE_LIMIT, now);
+        }
+
+        // when
+        long first = rateLimiter.reserve(URL, RATE_LIMIT, now);
+        long second = rateLimiter.reserve(URL, RATE_LIMIT, now);
+
+        // then
+        assertThat(first).isZero();
+        assertThat(second).isEqualTo(INTERVAL);
+    }
+
+    @Test
+    public void reserve_AfterIdlePeriod_RefillsBucket() {
+
+        // given
+        long now = 0;
+        for (int i = 0; i <= RateLimiter.BURST; i++) {
+            rateLimiter.reserve(URL, RATE_LIMIT, now);
+        }
+
+        // when
+        long wait = rateLimiter.reserve(URL, RATE_LIMIT, now + INTERVAL * (RateLimiter.BURST + 1));
+
+        // then
+        assertThat(wait).isZero();
+    }
+
+    @Test
+    public void reserve_OnDifferentUrls_UsesSeparateBuckets() {
+
+        // given
+        long now = 0;
+        for (int i = 0; i <= RateLimiter.BURST; i++) {
+            rateLimiter.reserve(URL, RATE_LIMIT, now);
+        }
+
+        // when
+        long wait = rateLimiter.reserve("http://localhost/anotherWebhook", RATE_LIMIT, now);
+
+        // then
+        assertThat(wait).isZero();
+    }
+
+    @Test
+    public void reserve_OnDisabledLimit_DoesNotWait() {
+
+        // given
+        long now = 0;
+
+        for (int i = 0; i < RateLimiter.BURST * 10; i++) {
+            // when
+            long wait = rateLimiter.reserve(URL, 0, now);
+
+            // then
+            assertThat(wait).isZero();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package jenkins.plugins.office365connector;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+
+public class RingBufferTest {
+
+    @Test
+    public void getNewestFirst_OnEmptyBuffer_ReturnsEmptyList() {
+
+        // given
+        RingBuffer<String> buffer = new RingBuffer<>(3);
+
+        // when & then
+        assertThat(buffer.getNewestFirst()).isEmpty();
+    }
+
+    @Test
+    public void getNewestFirst_ReturnsElementsInReversedOrder() {
+
+        // given
+        RingBuffer<String> buffer = new RingBuffer<>(3);
+        buffer.add("first");
+        buffer.add("second");
+
+        // when & then
+        assertThat(buffer.getNewestFirst()).containsExactly("second", "first");
+    }
+
+    @Test
+    public void add_OnFullBuffer_OverwritesOldestElement() {
+
+        // given
+        RingBuffer<String> buffer = new RingBuffer<>(3);
+        buffer.add("first");
+        buffer.add("second");
+        buffer.add("third");
+
+        // when
+        buffer.add("fourth");
+
+        // then
+        assertThat(buffer.getNewestFirst()).containsExactly("fourth", "third", "second");
+    }
+}
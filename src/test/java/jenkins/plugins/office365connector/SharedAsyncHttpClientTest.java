@@ -0,0 +1,41 @@
+package jenkins.plugins.office365connector;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class SharedAsyncHttpClientTest {
+
+    @After
+    public void tearDown() {
+        SharedAsyncHttpClient.close();
+    }
+
+    @Test
+    public void get_OnSameTimeout_ReturnsSameClient() {
+
+        // given & when
+        HttpClient first = SharedAsyncHttpClient.get(5000);
+        HttpClient second = SharedAsyncHttpClient.get(5000);
+
+        // then
+        assertThat(first).isSameAs(second);
+    }
+
+    @Test
+    public void get_OnDifferentTimeout_ReturnsClientWithThatTimeout() {
+
+        // given & when
+        HttpClient first = SharedAsyncHttpClient.get(5000);
+        HttpClient second = SharedAsyncHttpClient.get(1000);
+
+        // then
+        assertThat(first).isNotSameAs(second);
+        assertThat(first.connectTimeout()).contains(Duration.ofMillis(5000));
+        assertThat(second.connectTimeout()).contains(Duration.ofMillis(1000));
+    }
+}
@@ -0,0 +1,136 @@
+package jenkins.plugins.office365connector;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import com.sun.net.httpserver.HttpServer;
+import hudson.ProxyConfiguration;
+import jenkins.model.Jenkins;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.util.EntityUtils;
+import org.junit.After;
+import org.junit.Test;
+import org.mockito.MockedStatic;
+
+public class SharedHttpClientTest {
+
+    @After
+    public void tearDown() {
+        SharedHttpClient.close();
+    }
+
+    @Test
+    public void get_ReturnsSameClient() {
+
+        // given & when
+        CloseableHttpClient first = SharedHttpClient.get();
+        CloseableHttpClient second = SharedHttpClient.get();
+
+        // then
+        assertThat(first).isSameAs(second);
+    }
+
+    @Test
+    public void get_OnClosedClient_ReturnsNewClient() {
+
+        // given
+        CloseableHttpClient first = SharedHttpClient.get();
+        SharedHttpClient.close();
+
+        // when
+        CloseableHttpClient second = SharedHttpClient.get();
+
+        // then
+        assertThat(first).isNotSameAs(second);
+    }
+
+    @Test
+    public void get_OnProxyChange_ClosesOldClientAfterRequestsFinish() throws Exception {
+
+        // given
+        CountDownLatch requestReceived = new CountDownLatch(1);
+        CountDownLatch responseAllowed = new CountDownLatch(1);
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/webhook", exchange -> {
+            requestReceived.countDown();
+            try {
+                responseAllowed.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.start();
+        String url = "http://localhost:" + server.getAddress().getPort() + "/webhook";
+        Jenkins jenkins = mock(Jenkins.class);
+
+        try (MockedStatic<Jenkins> staticJenkins = mockStatic(Jenkins.class)) {
+            staticJenkins.when(Jenkins::getInstanceOrNull).thenReturn(jenkins);
+            CloseableHttpClient oldClient = SharedHttpClient.get();
+            CompletableFuture<Integer> request = CompletableFuture.supplyAsync(() -> {
+                try (CloseableHttpResponse response = oldClient.execute(new HttpGet(url))) {
+                    EntityUtils.consume(response.getEntity());
+                    return response.getStatusLine().getStatusCode();
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            assertThat(requestReceived.await(5, TimeUnit.SECONDS)).isTrue();
+            jenkins.proxy = new ProxyConfiguration("proxy.example.com", 3128);
+
+            // when
+            CloseableHttpClient newClient = SharedHttpClient.get();
+            responseAllowed.countDown();
+
+            // then
+            assertThat(newClient).isNotSameAs(oldClient);
+            assertThat(request.get(5, TimeUnit.SECONDS)).isEqualTo(200);
+            SharedHttpClient.get();
+            assertThatThrownBy(() -> oldClient.execute(new HttpGet(url)))
+                    .isInstanceOf(IllegalStateException.class);
+        } finally {
+            responseAllowed.countDown();
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void isNoProxyHost_OnMatchedHost_ReturnsTrue() {
+
+        // given
+        List<Pattern> patterns = Arrays.asList(Pattern.compile("localhost"), Pattern.compile(".*\\.office\\.com"));
+
+        // when
+        boolean noProxy = SharedHttpClient.isNoProxyHost("webhook.office.com", patterns);
+
+        // then
+        assertThat(noProxy).isTrue();
+    }
+
+    @Test
+    public void isNoProxyHost_OnMismatchedHost_ReturnsFalse() {
+
+        // given
+        List<Pattern> patterns = Arrays.asList(Pattern.compile("localhost"));
+
+        // when
+        boolean noProxy = SharedHttpClient.isNoProxyHost("webhook.office.com", patterns);
+
+        // then
+        assertThat(noProxy).isFalse();
+    }
+}
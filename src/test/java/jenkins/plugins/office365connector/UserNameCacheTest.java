@@ -0,0 +1,121 @@
+package jenkins.plugins.office365connector;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import hudson.model.User;
+import org.junit.Test;
+
+public class UserNameCacheTest {
+
+    private static final long TTL = 1000;
+
+    private final Map<String, User> users = new HashMap<>();
+    private final AtomicInteger lookups = new AtomicInteger();
+
+    @Test
+    public void getFullName_OnKnownUser_DoesNotLookUpUserAgain() {
+
+        // given
+        UserNameCache cache = createCache(10);
+        addUser("damian", "Damian Szczepanik");
+
+        // when
+        cache.getFullName("damian", 0);
+        String fullName = cache.getFullName("damian", 0);
+
+        // then
+        assertThat(fullName).isEqualTo("Damian Szczepanik");
+        assertThat(lookups).hasValue(1);
+    }
+
+    @Test
+    public void getFullName_AfterTtl_LooksUpUserAgain() {
+
+        // given
+        UserNameCache cache = createCache(10);
+        User user = addUser("damian", "Damian");
+        cache.getFullName("damian", 0);
+        when(user.getFullName()).thenReturn("Damian Szczepanik");
+
+        // when
+        String fullName = cache.getFullName("damian", TimeUnit.MILLISECONDS.toNanos(TTL));
+
+        // then
+        assertThat(fullName).isEqualTo("Damian Szczepanik");
+        assertThat(lookups).hasValue(2);
+    }
+
+    @Test
+    public void getFullName_AfterInvalidation_LooksUpUserAgain() {
+
+        // given
+        UserNameCache cache = createCache(10);
+        User user = addUser("damian", "Damian");
+        cache.getFullName("damian", 0);
+        when(user.getFullName()).thenReturn("Damian Szczepanik");
+
+        // when
+        cache.invalidate("damian");
+
+        // then
+        assertThat(cache.getFullName("damian", 0)).isEqualTo("Damian Szczepanik");
+    }
+
+    @Test
+    public void getFullName_OnFullCache_RemovesLeastRecentlyUsedName() {
+
+        // given
+        UserNameCache cache = createCache(2);
+        addUser("first", "First");
+        addUser("second", "Second");
+        addUser("third", "Third");
+        cache.getFullName("first", 0);
+        cache.getFullName("second", 0);
+        cache.getFullName("first", 0);
+
+        // when
+        cache.getFullName("third", 0);
+
+        // then
+        assertThat(cache.size()).isEqualTo(2);
+        cache.getFullName("first", 0);
+        assertThat(lookups).hasValue(3);
+        cache.getFullName("second", 0);
+        assertThat(lookups).hasValue(4);
+    }
+
+    @Test
+    public void getFullName_OnUnknownUser_ReturnsId() {
+
+        // given
+        UserNameCache cache = createCache(10);
+
+        // when
+        String fullName = cache.getFullName("unknown", 0);
+
+        // then
+        assertThat(fullName).isEqualTo("unknown");
+    }
+
+    private UserNameCache createCache(int capacity) {
+        return new UserNameCache(capacity, TTL, id -> {
+            lookups.incrementAndGet();
+            return users.get(id);
+        });
+    }
+
+    private User addUser(String id, String fullName) {
+        User user = mock(User.class);
+        when(user.getId()).thenReturn(id);
+        when(user.getFullName()).thenReturn(fullName);
+        users.put(id, user);
+        return user;
+    }
+}
@@ -98,6 +98,78 @@ public class WebhookDescriptorImplTest {
         assertThat(descriptor.getUrl()).isEqualTo(url);
     }
 
+    @Test
+    public void getGlobalMaxAttempts_ReturnsMaxAttempts() {
+
+        // given
+        int maxAttempts = 4;
+
+        // when
+        descriptor.setGlobalMaxAttempts(maxAttempts);
+
+        // then
+        assertThat(descriptor.getGlobalMaxAttempts()).isEqualTo(maxAttempts);
+    }
+
+    @Test
+    public void getGlobalMaxRetryDelay_ReturnsMaxRetryDelay() {
+
+        // given
+        int maxRetryDelay = 9000;
+
+        // when
+        descriptor.setGlobalMaxRetryDelay(maxRetryDelay);
+
+        // then
+        assertThat(descriptor.getGlobalMaxRetryDelay()).isEqualTo(maxRetryDelay);
+    }
+
+    @Test
+    public void getGlobalRateLimit_ReturnsDefaultRateLimit() {
+
+        // given & when
+        int rateLimit = descriptor.getGlobalRateLimit();
+
+        // then
+        assertThat(rateLimit).isEqualTo(Webhook.DEFAULT_RATE_LIMIT);
+    }
+
+    @Test
+    public void getTransport_OnMissingTransport_ReturnsBlocking() {
+
+        // given & when
+        Transport transport = descriptor.getTransport();
+
+        // then
+        assertThat(transport).isEqualTo(Transport.BLOCKING);
+    }
+
+    @Test
+    public void getTransport_ReturnsTransport() {
+
+        // given
+        Transport transport = Transport.ASYNC;
+
+        // when
+        descriptor.setTransport(transport);
+
+        // then
+        assertThat(descriptor.getTransport()).isEqualTo(transport);
+    }
+
+    @Test
+    public void getGlobalRateLimit_ReturnsRateLimit() {
+
+        // given
+        int rateLimit = 30;
+
+        // when
+        descriptor.setGlobalRateLimit(rateLimit);
+
+        // then
+        assertThat(descriptor.getGlobalRateLimit()).isEqualTo(rateLimit);
+    }
+
     @Test
     public void configure_ReturnsTrue() {
 
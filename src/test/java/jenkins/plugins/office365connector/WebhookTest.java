@@ -279,6 +279,66 @@ public class WebhookTest {
         assertThat(actualTimeout).isEqualTo(Webhook.DEFAULT_TIMEOUT);
     }
 
+    @Test
+    public void getMaxAttempts_ReturnsMaxAttempts() {
+
+        // given
+        Webhook webhook = new Webhook("someUrl");
+        int maxAttempts = 5;
+        webhook.setMaxAttempts(maxAttempts);
+
+        // when
+        int actualMaxAttempts = webhook.getMaxAttempts();
+
+        // then
+        assertThat(actualMaxAttempts).isEqualTo(maxAttempts);
+    }
+
+    @Test
+    public void getMaxRetryDelay_ReturnsMaxRetryDelay() {
+
+        // given
+        Webhook webhook = new Webhook("someUrl");
+        int maxRetryDelay = 4000;
+        webhook.setMaxRetryDelay(maxRetryDelay);
+
+        // when
+        int actualMaxRetryDelay = webhook.getMaxRetryDelay();
+
+        // then
+        assertThat(actualMaxRetryDelay).isEqualTo(maxRetryDelay);
+    }
+
+    @Test
+    public void getCoalescingWindow_ReturnsCoalescingWindow() {
+
+        // given
+        Webhook webhook = new Webhook("someUrl");
+        int coalescingWindow = 30;
+        webhook.setCoalescingWindow(coalescingWindow);
+
+        // when
+        int actualCoalescingWindow = webhook.getCoalescingWindow();
+
+        // then
+        assertThat(actualCoalescingWindow).isEqualTo(coalescingWindow);
+    }
+
+    @Test
+    public void getStartGracePeriod_ReturnsStartGracePeriod() {
+
+        // given
+        Webhook webhook = new Webhook("someUrl");
+        int startGracePeriod = 15;
+        webhook.setStartGracePeriod(startGracePeriod);
+
+        // when
+        int actualStartGracePeriod = webhook.getStartGracePeriod();
+
+        // then
+        assertThat(actualStartGracePeriod).isEqualTo(startGracePeriod);
+    }
+
     @Test
     public void getMacros_ReturnsMacros() {
 
@@ -8,10 +8,12 @@ import static org.mockito.Mockito.when;
 
 import java.io.IOException;
 import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
+import com.google.gson.JsonParser;
 import hudson.EnvVars;
 import hudson.FilePath;
 import hudson.model.AbstractBuild;
@@ -27,7 +29,6 @@ import jenkins.plugins.office365connector.Webhook;
 import jenkins.plugins.office365connector.WebhookJobProperty;
 import jenkins.plugins.office365connector.helpers.ClassicDisplayURLProviderBuilder;
 import jenkins.plugins.office365connector.helpers.WebhookBuilder;
-import org.apache.commons.lang.StringUtils;
 import org.jenkinsci.plugins.displayurlapi.DisplayURLProvider;
 import org.jenkinsci.plugins.tokenmacro.TokenMacro;
 import org.junit.After;
@@ -155,11 +156,11 @@ public abstract class AbstractTest {
             throw new IllegalStateException("Can only mock worker construction once per test");
         }
         workerData = new ArrayList<>();
-        workerConstruction = mockConstruction(HttpWorker.class, (mock, context) -> workerData.add(context.arguments().get(1).toString()));
+        workerConstruction = mockConstruction(HttpWorker.class, (mock, context) -> workerData.add(new String((byte[]) context.arguments().get(1), StandardCharsets.UTF_8)));
     }
 
-    // compares files without worrying about EOL
+    // compares JSON documents without worrying about formatting and EOL
     protected void assertHasSameContent(String value, String expected) {
-        assertThat(StringUtils.normalizeSpace(value)).isEqualTo(StringUtils.normalizeSpace(expected));
+        assertThat(JsonParser.parseString(value).toString()).isEqualTo(JsonParser.parseString(expected).toString());
     }
 }
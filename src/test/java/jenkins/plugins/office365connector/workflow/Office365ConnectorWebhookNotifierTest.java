@@ -3,14 +3,21 @@ package jenkins.plugins.office365connector.workflow;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.Assert.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.mockConstruction;
 import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
+import hudson.EnvVars;
 import hudson.model.AbstractBuild;
 import hudson.model.AbstractProject;
 import hudson.model.Job;
@@ -18,11 +25,13 @@ import hudson.model.Result;
 import hudson.model.TaskListener;
 import jenkins.model.Jenkins;
 import jenkins.plugins.office365connector.CardBuilder;
+import jenkins.plugins.office365connector.Counter;
 import jenkins.plugins.office365connector.DecisionMaker;
 import jenkins.plugins.office365connector.Office365ConnectorWebhookNotifier;
 import jenkins.plugins.office365connector.Webhook;
 import jenkins.plugins.office365connector.WebhookJobProperty;
 import jenkins.plugins.office365connector.helpers.WebhookBuilder;
+import jenkins.util.Timer;
 import mockit.internal.reflection.FieldReflection;
 import mockit.internal.reflection.MethodReflection;
 import org.junit.After;
@@ -155,6 +164,142 @@ public class Office365ConnectorWebhookNotifierTest extends AbstractTest {
         }
     }
 
+    @Test
+    public void sendBuildCompletedNotification_OnManyWebhooks_SharesCardBuilder() {
+        // given
+        Office365ConnectorWebhookNotifier notifier = new Office365ConnectorWebhookNotifier(run, taskListener);
+        setWebhookToJob(WebhookBuilder.sampleMultiplyWebhookWithAllStatuses());
+
+        try (MockedConstruction<CardBuilder> cardBuilderConstruction = mockConstruction(CardBuilder.class)) {
+            // when
+            notifier.sendBuildCompletedNotification();
+
+            // then
+            assertEquals(1, cardBuilderConstruction.constructed().size());
+        }
+    }
+
+    @Test
+    public void sendBuildStartedNotification_OnStartGracePeriod_DefersNotification() {
+
+        // given
+        Office365ConnectorWebhookNotifier notifier = new Office365ConnectorWebhookNotifier(run, taskListener);
+        List<Webhook> webhooks = WebhookBuilder.sampleWebhookWithAllStatuses();
+        webhooks.get(0).setStartGracePeriod(30);
+        setWebhookToJob(webhooks);
+        ScheduledExecutorService timer = mock(ScheduledExecutorService.class);
+
+        try (MockedStatic<Timer> staticTimer = mockStatic(Timer.class);
+             MockedConstruction<CardBuilder> cardBuilderConstruction = mockConstruction(CardBuilder.class)) {
+            staticTimer.when(Timer::get).thenReturn(timer);
+
+            // when
+            notifier.sendBuildStartedNotification(true);
+
+            // then
+            verify(timer).schedule(any(Runnable.class), eq(30L), eq(TimeUnit.SECONDS));
+            assertThat(cardBuilderConstruction.constructed()).isEmpty();
+        }
+    }
+
+    @Test
+    public void sendDeferredStartedNotification_OnFinishedBuild_SkipsNotification() throws Throwable {
+
+        // given
+        Office365ConnectorWebhookNotifier notifier = new Office365ConnectorWebhookNotifier(run, taskListener);
+        when(run.isBuilding()).thenReturn(false);
+        Webhook webhook = WebhookBuilder.sampleWebhookWithAllStatuses().get(0);
+        long savedNotifications = Counter.SAVED_START_NOTIFICATIONS.get();
+
+        try (MockedConstruction<CardBuilder> cardBuilderConstruction = mockConstruction(CardBuilder.class)) {
+            // when
+            MethodReflection.invokeWithCheckedThrows(notifier.getClass(), notifier, "sendDeferredStartedNotification", new Class[]{Webhook.class}, webhook);
+
+            // then
+            assertThat(cardBuilderConstruction.constructed()).isEmpty();
+            assertThat(Counter.SAVED_START_NOTIFICATIONS.get()).isGreaterThan(savedNotifications);
+        }
+    }
+
+    @Test
+    public void sendDeferredStartedNotification_OnRunningBuild_SendsNotification() throws Throwable {
+
+        // given
+        Office365ConnectorWebhookNotifier notifier = new Office365ConnectorWebhookNotifier(run, taskListener);
+        when(run.isBuilding()).thenReturn(true);
+        List<Webhook> webhooks = WebhookBuilder.sampleMultiplyWebhookWithAllStatuses();
+
+        try (MockedConstruction<CardBuilder> cardBuilderConstruction = mockConstruction(CardBuilder.class)) {
+            // when
+            for (Webhook webhook : webhooks) {
+                MethodReflection.invokeWithCheckedThrows(notifier.getClass(), notifier, "sendDeferredStartedNotification", new Class[]{Webhook.class}, webhook);
+            }
+
+            // then
+            assertEquals(1, cardBuilderConstruction.constructed().size());
+            verify(cardBuilderConstruction.constructed().get(0), times(2)).createStartedCard(any());
+        }
+    }
+
+    @Test
+    public void expandUrl_OnUrlWithoutVariables_SkipsEnvironment() throws Throwable {
+
+        // given
+        Office365ConnectorWebhookNotifier notifier = new Office365ConnectorWebhookNotifier(run, taskListener);
+        String url = "http://localhost/webhook";
+        long skippedExpansions = Counter.SKIPPED_URL_EXPANSIONS.get();
+
+        // when
+        String expandedUrl = MethodReflection.invokeWithCheckedThrows(notifier.getClass(), notifier, "expandUrl", new Class[]{String.class}, url);
+
+        // then
+        assertThat(expandedUrl).isEqualTo(url);
+        verify(run, never()).getEnvironment(any());
+        assertThat(Counter.SKIPPED_URL_EXPANSIONS.get()).isEqualTo(skippedExpansions + 1);
+    }
+
+    @Test
+    public void expandUrl_OnManyUrls_ComputesEnvironmentOnce() throws Throwable {
+
+        // given
+        Office365ConnectorWebhookNotifier notifier = new Office365ConnectorWebhookNotifier(run, taskListener);
+        when(run.getEnvironment(any())).thenReturn(new EnvVars("HOST", "localhost"));
+        long reusedEnvironments = Counter.REUSED_ENVIRONMENTS.get();
+        long skippedExpansions = Counter.SKIPPED_URL_EXPANSIONS.get();
+
+        // when
+        String firstUrl = MethodReflection.invokeWithCheckedThrows(notifier.getClass(), notifier, "expandUrl", new Class[]{String.class}, "http://${HOST}/first");
+        String secondUrl = MethodReflection.invokeWithCheckedThrows(notifier.getClass(), notifier, "expandUrl", new Class[]{String.class}, "http://$HOST/second");
+
+        // then
+        assertThat(firstUrl).isEqualTo("http://localhost/first");
+        assertThat(secondUrl).isEqualTo("http://localhost/second");
+        verify(run, times(1)).getEnvironment(any());
+        assertThat(Counter.REUSED_ENVIRONMENTS.get()).isEqualTo(reusedEnvironments + 1);
+        assertThat(Counter.SKIPPED_URL_EXPANSIONS.get()).isEqualTo(skippedExpansions);
+    }
+
+    @Test
+    public void expandUrl_OnSameUrl_CountsSkippedExpansion() throws Throwable {
+
+        // given
+        Office365ConnectorWebhookNotifier notifier = new Office365ConnectorWebhookNotifier(run, taskListener);
+        when(run.getEnvironment(any())).thenReturn(new EnvVars("HOST", "localhost"));
+        String url = "http://${HOST}/webhook";
+        MethodReflection.invokeWithCheckedThrows(notifier.getClass(), notifier, "expandUrl", new Class[]{String.class}, url);
+        long reusedEnvironments = Counter.REUSED_ENVIRONMENTS.get();
+        long skippedExpansions = Counter.SKIPPED_URL_EXPANSIONS.get();
+
+        // when
+        String expandedUrl = MethodReflection.invokeWithCheckedThrows(notifier.getClass(), notifier, "expandUrl", new Class[]{String.class}, url);
+
+        // then
+        assertThat(expandedUrl).isEqualTo("http://localhost/webhook");
+        verify(run, times(1)).getEnvironment(any());
+        assertThat(Counter.SKIPPED_URL_EXPANSIONS.get()).isEqualTo(skippedExpansions + 1);
+        assertThat(Counter.REUSED_ENVIRONMENTS.get()).isEqualTo(reusedEnvironments);
+    }
+
     private void injectFakeDecisionMaker(Office365ConnectorWebhookNotifier notifier) throws NoSuchFieldException {
         DecisionMaker decisionMaker = mock(DecisionMaker.class);
         when(decisionMaker.isAtLeastOneRuleMatched(any())).thenThrow(new IllegalStateException());
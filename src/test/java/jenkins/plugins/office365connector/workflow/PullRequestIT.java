@@ -41,6 +41,7 @@ public class PullRequestIT extends AbstractTest {
 
     private MockedStatic<Jenkins> staticJenkins;
     private MockedStatic<SCMHead.HeadByItem> headByItem;
+    private MockedStatic<User> staticUser;
 
     @Before
     public void setUp() {
@@ -70,6 +71,7 @@ public class PullRequestIT extends AbstractTest {
     @After
     public void tearDown() {
         headByItem.close();
+        staticUser.close();
         staticJenkins.close();
     }
 
@@ -90,7 +92,9 @@ public class PullRequestIT extends AbstractTest {
         User user = AffectedFileBuilder.mockUser(USER_NAME);
         when(user.getFullName()).thenReturn(USER_NAME);
 
-        when(run.getCulprits()).thenReturn(new HashSet(Arrays.asList(user)));
+        when(run.getCulpritIds()).thenReturn(new HashSet<>(Arrays.asList(USER_NAME)));
+        staticUser = mockStatic(User.class);
+        staticUser.when(() -> User.getById(USER_NAME, false)).thenReturn(user);
     }
 
     private void mockGetChangeSets() {